@@ -71,6 +71,25 @@ public class Bitboard {
      */
     final static long[][] bbTable = new long[64][64];
 
+    /**
+     * Table of bitboards that represent the squares strictly included between two squares lying on the same rank,
+     * file or diagonal, specified by the indexes used to access the table. If the two squares are not aligned, the
+     * bitboard is empty.
+     * <p>
+     * For instance, the bitboard looked up by coordinates {@code (0, 27)} contains the squares between {@code A1} and
+     * {@code D4}, i.e. the set of squares {@code [B2, C3]}.
+     */
+    final static long[][] squaresBetweenTable = new long[64][64];
+
+    /**
+     * Table of bitboards that represent the whole line (rank, file or diagonal) passing through two squares, specified
+     * by the indexes used to access the table. If the two squares are not aligned, the bitboard is empty.
+     * <p>
+     * For instance, the bitboard looked up by coordinates {@code (9, 18)} contains the whole {@code A1-H8} diagonal,
+     * which passes through {@code B2} and {@code C3}.
+     */
+    final static long[][] lineTable = new long[64][64];
+
     /**
      * Table of <i>right-pointing</i> diagonals accessed by square index. For example, the diagonal looked up by index
      * 1 is the diagonal {@code B1-H7}, the diagonal the square {@code B1} (index 1) belongs to.
@@ -317,6 +336,136 @@ public class Bitboard {
                 bbTable[x][y] = ((1L << y) | ((1L << y) - (1L << x)));
             }
         }
+        final int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+        for (int x = 0; x < 64; x++) {
+            for (int[] direction : directions) {
+                long line = (1L << x) | ray(x, direction[0], direction[1]) | ray(x, -direction[0], -direction[1]);
+                for (int sign = -1; sign <= 1; sign += 2) {
+                    long between = 0L;
+                    int file = (x & 7) + sign * direction[0];
+                    int rank = (x >>> 3) + sign * direction[1];
+                    while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                        int y = rank * 8 + file;
+                        squaresBetweenTable[x][y] = between;
+                        lineTable[x][y] = line;
+                        between |= 1L << y;
+                        file += sign * direction[0];
+                        rank += sign * direction[1];
+                    }
+                }
+            }
+        }
+    }
+
+    private static long ray(int index, int fileStep, int rankStep) {
+        long ray = 0L;
+        int file = (index & 7) + fileStep;
+        int rank = (index >>> 3) + rankStep;
+        while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+            ray |= 1L << (rank * 8 + file);
+            file += fileStep;
+            rank += rankStep;
+        }
+        return ray;
+    }
+
+    /**
+     * Magic multipliers used to hash the relevant occupancy of a rook placed on the square with the same index. The
+     * numbers have been found offline with a trial-and-error search over sparse random values, so that each of them
+     * maps every relevant occupancy to an index of the attack table with no destructive collision.
+     */
+    static final long[] rookMagics = {
+            0x2080002080400010L, 0x00c0002001401000L, 0x2100110008402002L, 0x0880080081041000L,
+            0x0200020020041008L, 0x2300040008010012L, 0x0c00283004008201L, 0x0180010000407a80L,
+            0x0168800080400020L, 0x0010400040201000L, 0x1001002001001048L, 0x1001002408100100L,
+            0x0801000408010012L, 0x4001000209000400L, 0x08a20004c8020001L, 0x2002801145002280L,
+            0x0080860021004200L, 0x001000c009402002L, 0x00b0002004002800L, 0x100a808010020800L,
+            0x8101010008000410L, 0x0244008002000480L, 0x0000040010810208L, 0x2000020000448534L,
+            0x4104400480008033L, 0x0000810100204000L, 0x0440430900200010L, 0x4600240900100100L,
+            0x0060080080040080L, 0x0001000300080400L, 0x0004084400011002L, 0x0023040200008041L,
+            0x0580050043002080L, 0x0400804002802008L, 0x0001002001004010L, 0x1000200901001000L,
+            0x4410800801800c00L, 0xa012003806001004L, 0x0020100104008802L, 0x0004808402000041L,
+            0x0010400170898000L, 0x0080500020004004L, 0x1040408012020020L, 0x8010040008004040L,
+            0x2001080100110004L, 0x0000020004008080L, 0x0021010810040002L, 0x0800008c43020024L,
+            0x0000800021005100L, 0x0070201040008080L, 0x0000d04282006a00L, 0x0010014400080240L,
+            0x0001080110050100L, 0x0012000810240600L, 0x0402000801040200L, 0x028100108a004100L,
+            0x0050800300102045L, 0x8208210040120882L, 0x8010600101183441L, 0x020b000910006045L,
+            0x0241001002480005L, 0x0081000400880241L, 0x0000009008024124L, 0x0048122980410402L
+    };
+
+    /**
+     * Magic multipliers used to hash the relevant occupancy of a bishop placed on the square with the same index.
+     *
+     * @see Bitboard#rookMagics
+     */
+    static final long[] bishopMagics = {
+            0x0848020822040013L, 0x8010a40085821200L, 0x0008008430840822L, 0x0808048108040000L,
+            0x1304042100008104L, 0x5001012010204023L, 0x81048801b8200420L, 0x200a008084012000L,
+            0x0040102001042084L, 0x840a505042428020L, 0x0000700102202920L, 0x44101c0c10800002L,
+            0x0040040422000000L, 0x0180020802090202L, 0x4020020811041202L, 0x000104308c042000L,
+            0x4140661002424400L, 0x0028012008010460L, 0x0188062102002a00L, 0x0014004840102008L,
+            0x0105000290400002L, 0x8001022200410400L, 0x104a041918013446L, 0x008a000082008238L,
+            0x04a0060008100430L, 0x0008220008820801L, 0x2508041208005010L, 0x4008080200202020L,
+            0x2441001013004000L, 0x0030008060407000L, 0x4008108000420800L, 0x0012021050290100L,
+            0x0210080482200500L, 0xcc01112048100480L, 0x0020402806500440L, 0x00048e0080580080L,
+            0x0040102020020080L, 0x0028010440080807L, 0x4601041108008800L, 0x8040810e04104200L,
+            0x901210110400088aL, 0xa003080212081050L, 0x00c1004048401004L, 0x900000a014400800L,
+            0x0008021040405401L, 0x4020008206002090L, 0x0004190424030100L, 0x0424008a02026250L,
+            0x8004088250900040L, 0x1c00430088a04200L, 0x0001020094040001L, 0x8040210020880061L,
+            0x2010040450442032L, 0x0800840850044001L, 0x0004040802140004L, 0x0004080a04222020L,
+            0x8088802110022000L, 0x1081a10416114400L, 0x0205010a24060820L, 0x0000000720411080L,
+            0x1008000208430400L, 0x580c026028810840L, 0x802020441020a110L, 0x12c0022401020018L
+    };
+
+    /**
+     * Masks of the squares that can block the movement of a rook placed on the square with the same index. The edge
+     * squares are excluded, since a piece placed there does not change the attacks of the rook.
+     */
+    static final long[] rookMasks = new long[64];
+    /**
+     * Masks of the squares that can block the movement of a bishop placed on the square with the same index.
+     *
+     * @see Bitboard#rookMasks
+     */
+    static final long[] bishopMasks = new long[64];
+    static final int[] rookShifts = new int[64];
+    static final int[] bishopShifts = new int[64];
+    static final int[] rookOffsets = new int[64];
+    static final int[] bishopOffsets = new int[64];
+    static final long[] rookAttackTable;
+    static final long[] bishopAttackTable;
+
+    static {
+        final long edges = rankBB[0] | rankBB[7] | fileBB[0] | fileBB[7];
+        int rookSize = 0;
+        int bishopSize = 0;
+        for (int x = 0; x < 64; x++) {
+            rookMasks[x] = (fileAttacks[x] & ~(rankBB[0] | rankBB[7])) | (rankAttacks[x] & ~(fileBB[0] | fileBB[7]));
+            bishopMasks[x] = (diagA1H8Attacks[x] | diagH1A8Attacks[x]) & ~edges;
+            rookShifts[x] = 64 - Long.bitCount(rookMasks[x]);
+            bishopShifts[x] = 64 - Long.bitCount(bishopMasks[x]);
+            rookOffsets[x] = rookSize;
+            bishopOffsets[x] = bishopSize;
+            rookSize += 1 << Long.bitCount(rookMasks[x]);
+            bishopSize += 1 << Long.bitCount(bishopMasks[x]);
+        }
+        rookAttackTable = new long[rookSize];
+        bishopAttackTable = new long[bishopSize];
+        for (int x = 0; x < 64; x++) {
+            Square square = Square.squareAt(x);
+            // enumerate all the subsets of the masks using the Carry-Rippler trick
+            long occ = 0L;
+            do {
+                rookAttackTable[rookOffsets[x] + (int) ((occ * rookMagics[x]) >>> rookShifts[x])] =
+                        getRookAttacksByRayScan(occ, square);
+                occ = (occ - rookMasks[x]) & rookMasks[x];
+            } while (occ != 0L);
+            do {
+                bishopAttackTable[bishopOffsets[x] + (int) ((occ * bishopMagics[x]) >>> bishopShifts[x])] =
+                        getBishopAttacksByRayScan(occ, square);
+                occ = (occ - bishopMasks[x]) & bishopMasks[x];
+            } while (occ != 0L);
+        }
     }
 
     /**
@@ -415,13 +564,43 @@ public class Bitboard {
         return bbTable[sq1][sq2] & bb;
     }
 
+    /**
+     * Returns the bitboard of the squares strictly included between two squares lying on the same rank, file or
+     * diagonal. If the two squares are not aligned, an empty bitboard is returned.
+     * <p>
+     * For example, if squares {@code A1} and {@code D4} are provided in input, the method returns the bitboard of
+     * squares {@code [B2, C3]}.
+     *
+     * @param sq1 the index of the first square
+     * @param sq2 the index of the second square
+     * @return the bitboard of the squares between the two squares
+     */
+    public static long squaresBetween(int sq1, int sq2) {
+        return squaresBetweenTable[sq1][sq2];
+    }
+
+    /**
+     * Returns the bitboard of the whole line (rank, file or diagonal) passing through two squares, from edge to edge
+     * of the board. If the two squares are not aligned, an empty bitboard is returned.
+     * <p>
+     * For example, if squares {@code B2} and {@code C3} are provided in input, the method returns the bitboard of the
+     * {@code A1-H8} diagonal.
+     *
+     * @param sq1 the index of the first square
+     * @param sq2 the index of the second square
+     * @return the bitboard of the line passing through the two squares
+     */
+    public static long lineThrough(int sq1, int sq2) {
+        return lineTable[sq1][sq2];
+    }
+
     /**
      * Unsets the first bit set to 1. In other words, it sets to 0 the Least Significant 1-bit (LS1B).
      *
      * @param bb the bitboard to compute
      * @return the resulting bitboard, from which the first bit set to 1 has been unset
      */
-    public static long extractLsb(Long bb) {
+    public static long extractLsb(long bb) {
         return bb & (bb - 1);
     }
 
@@ -431,7 +610,7 @@ public class Bitboard {
      * @param bb the bitboard to check
      * @return {@code true} if the bitboard has only one bit set to 1
      */
-    public static boolean hasOnly1Bit(Long bb) {
+    public static boolean hasOnly1Bit(long bb) {
         return bb > 0L && extractLsb(bb) == 0L;
     }
 
@@ -450,11 +629,25 @@ public class Bitboard {
      * either refer to the squares attacked by a bishop placed on the input square, or conversely the bishops that can
      * attack the square.
      *
+     * <p>
+     * The attacks are looked up in a table precomputed at class initialization, indexed by the <i>magic</i> hash of the
+     * pieces of the mask that can block the bishop.
+     *
      * @param square the square for which to calculate the bishop attacks
      * @param mask   the mask to apply to the bishop attacks
      * @return the bitboard of bishop movement attacks
+     * @see <a href="https://www.chessprogramming.org/Magic_Bitboards">Magic Bitboards in Chess Programming Wiki</a>
      */
     public static long getBishopAttacks(long mask, Square square) {
+        final int x = square.ordinal();
+        return bishopAttackTable[bishopOffsets[x] +
+                (int) (((mask & bishopMasks[x]) * bishopMagics[x]) >>> bishopShifts[x])];
+    }
+
+    /*
+     * computes the bishop attacks scanning the diagonals for the nearest blockers, with no magic lookup
+     */
+    static long getBishopAttacksByRayScan(long mask, Square square) {
         return getSliderAttacks(diagA1H8Attacks[square.ordinal()], mask, square.ordinal()) |
                 getSliderAttacks(diagH1A8Attacks[square.ordinal()], mask, square.ordinal());
     }
@@ -464,11 +657,25 @@ public class Bitboard {
      * refer to the squares attacked by a rook placed on the input square, or conversely the rooks that can attack the
      * square.
      *
+     * <p>
+     * The attacks are looked up in a table precomputed at class initialization, indexed by the <i>magic</i> hash of the
+     * pieces of the mask that can block the rook.
+     *
      * @param square the square for which to calculate the rook attacks
      * @param mask   the mask to apply to the rook attacks
      * @return the bitboard of rook movement attacks
+     * @see <a href="https://www.chessprogramming.org/Magic_Bitboards">Magic Bitboards in Chess Programming Wiki</a>
      */
     public static long getRookAttacks(long mask, Square square) {
+        final int x = square.ordinal();
+        return rookAttackTable[rookOffsets[x] +
+                (int) (((mask & rookMasks[x]) * rookMagics[x]) >>> rookShifts[x])];
+    }
+
+    /*
+     * computes the rook attacks scanning the rank and the file for the nearest blockers, with no magic lookup
+     */
+    static long getRookAttacksByRayScan(long mask, Square square) {
         return getSliderAttacks(fileAttacks[square.ordinal()], mask, square.ordinal()) |
                 getSliderAttacks(rankAttacks[square.ordinal()], mask, square.ordinal());
     }
@@ -19,12 +19,17 @@ package com.github.bhlangonijr.chesslib;
 import static com.github.bhlangonijr.chesslib.Bitboard.extractLsb;
 import static com.github.bhlangonijr.chesslib.Constants.emptyMove;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
@@ -33,6 +38,7 @@ import com.github.bhlangonijr.chesslib.game.GameContext;
 import com.github.bhlangonijr.chesslib.move.Move;
 import com.github.bhlangonijr.chesslib.move.MoveGenerator;
 import com.github.bhlangonijr.chesslib.move.MoveList;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
 import com.github.bhlangonijr.chesslib.util.XorShiftRandom;
 import org.apache.commons.lang3.StringUtils;
 
@@ -53,34 +59,116 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class Board implements Cloneable, BoardEvent {
 
-    private static final List<Long> keys = new ArrayList<>();
     private static final long RANDOM_SEED = 49109794719L;
     private static final int ZOBRIST_TABLE_SIZE = 2000;
+    // Zobrist keys, indexed by piece and square, castle rights bits of both sides, en passant target and side
+    private static final long[][] pieceSquareKeys = new long[Piece.allPieces.length - 1][Square.values().length - 1];
+    private static final long[] castleKeys = new long[16];
+    private static final long[] enPassantKeys = new long[Square.values().length - 1];
+    private static final long[] sideKeys = new long[Side.allSides.length];
+    // the keys of the piece and square pairs contributing to the pawn and king key, zero for the other pieces
+    private static final long[][] pawnKingSquareKeys = new long[Piece.allPieces.length - 1][Square.values().length - 1];
+    // material keys, indexed by piece and number of pieces of the same kind already on the board
+    private static final long[][] materialKeys = new long[Piece.allPieces.length - 1][Square.values().length];
+
+    private static final int UNDO_INITIAL_CAPACITY = 256;
+    private static final int HISTORY_INITIAL_CAPACITY = 256;
+    // flags of the derived data currently cached
+    private static final int CACHED_CHECKERS = 1;
+    private static final int CACHED_PINNED_PIECES = 1 << 1;
+    private static final int CACHED_LEGAL_MOVE_COUNT = 1 << 2;
+    private static final int CACHED_HAS_LEGAL_MOVE = 1 << 3;
+    private static final int CACHED_ATTACKED_SQUARES = 1 << 4;
+    private static final int UNDO_PIECE_MASK = 0x1F;
+    private static final int UNDO_SQUARE_MASK = 0x7F;
+    private static final int CASTLE_RIGHTS_MASK = 0xF;
+    private static final int UNDO_CAPTURED_SQUARE_SHIFT = 5;
+    private static final int UNDO_CASTLE_SHIFT = 12;
+    private static final int UNDO_EP_SHIFT = 16;
+    private static final int UNDO_EP_TARGET_SHIFT = 23;
+    private static final Square[] allSquares = Square.values();
+    // castle rights as bits (1 = king side, 2 = queen side), indexed by ordinal, and back
+    private static final int[] castleRightBits = {1, 2, 3, 0};
+    private static final CastleRight[] castleRightFromBits = {CastleRight.NONE, CastleRight.KING_SIDE,
+            CastleRight.QUEEN_SIDE, CastleRight.KING_AND_QUEEN_SIDE};
 
     static {
         final XorShiftRandom random = new XorShiftRandom(RANDOM_SEED);
+        final long[] keys = new long[ZOBRIST_TABLE_SIZE];
         for (int i = 0; i < ZOBRIST_TABLE_SIZE; i++) {
-            long key = random.nextLong();
-            keys.add(key);
+            keys[i] = random.nextLong();
+        }
+        for (int piece = 0; piece < pieceSquareKeys.length; piece++) {
+            for (int square = 0; square < pieceSquareKeys[piece].length; square++) {
+                pieceSquareKeys[piece][square] = keys[57 * piece + 13 * square];
+            }
+            PieceType type = Piece.allPieces[piece].getPieceType();
+            if (type == PieceType.PAWN || type == PieceType.KING) {
+                pawnKingSquareKeys[piece] = pieceSquareKeys[piece];
+            }
+        }
+        for (int bits = 0; bits < castleKeys.length; bits++) {
+            for (Side side : Side.allSides) {
+                CastleRight castleRight = castleRightFromBits[(bits >>> (side.ordinal() << 1)) & 3];
+                if (castleRight != CastleRight.NONE) {
+                    castleKeys[bits] ^= keys[3 * castleRight.ordinal() + 300 + 3 * side.ordinal()];
+                }
+            }
+        }
+        for (int square = 0; square < enPassantKeys.length; square++) {
+            enPassantKeys[square] = keys[3 * square + 400];
+        }
+        for (Side side : Side.allSides) {
+            sideKeys[side.ordinal()] = keys[3 * side.ordinal() + 500];
+        }
+        for (long[] pieceKeys : materialKeys) {
+            for (int count = 0; count < pieceKeys.length; count++) {
+                pieceKeys[count] = random.nextLong();
+            }
         }
     }
+    // the values of the piece types used by the static exchange evaluation and move ordering, indexed by ordinal
+    private static final int[] seePieceValues = {100, 300, 300, 500, 900, 10000, 0};
+    private static final int SEE_MAX_CAPTURES = 32;
+    private static final PieceType[] seePieceTypes = {PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP,
+            PieceType.ROOK, PieceType.QUEEN, PieceType.KING};
 
-    private final LinkedList<MoveBackup> backup;
+    private final Deque<MoveBackup> backup;
+    private final Deque<MoveBackup> backupPool;
     private final EnumMap<BoardEventType, List<BoardEventListener>> eventListener;
     private final long[] bitboard;
     private final long[] bbSide;
     private final Piece[] occupation;
-    private final EnumMap<Side, CastleRight> castleRight;
-    private final LinkedList<Long> history = new LinkedList<>();
+    private int castleRights;
+    private long[] history = new long[HISTORY_INITIAL_CAPACITY];
+    private int historySize;
+    private final RepetitionTable repetitions = new RepetitionTable();
+    private final EnumMap<Side, CastleRight> castleRightMap = new CastleRightMap();
+    private int cachedData;
+    private long checkers;
+    private long pinnedPieces;
+    private final long[] attackedSquares = new long[Side.allSides.length];
+    private int legalMoveCount;
+    private boolean hasLegalMove;
+    private int[] legalMoves;
     private Side sideToMove;
     private Square enPassantTarget;
     private Square enPassant;
-    private Integer moveCounter;
-    private Integer halfMoveCounter;
+    private int moveCounter;
+    private int halfMoveCounter;
     private GameContext context;
     private boolean enableEvents;
     private final boolean updateHistory;
     private long incrementalHashKey;
+    private long polyglotPieceKey;
+    private long pawnKingKey;
+    private long materialKey;
+    private int[] undoMoves = new int[UNDO_INITIAL_CAPACITY];
+    private int[] undoStates = new int[UNDO_INITIAL_CAPACITY];
+    private int[] undoHalfMoveCounters = new int[UNDO_INITIAL_CAPACITY];
+    private long[] undoHashKeys = new long[UNDO_INITIAL_CAPACITY];
+    private int undoPly;
+    private final int[] seeGains = new int[SEE_MAX_CAPTURES];
 
     /**
      * Constructs a new board using a default game context. The board will keep its history updated, that is, will store
@@ -104,8 +192,8 @@ public class Board implements Cloneable, BoardEvent {
         bitboard = new long[Piece.allPieces.length];
         bbSide = new long[Side.allSides.length];
         occupation = new Piece[Square.values().length];
-        castleRight = new EnumMap<>(Side.class);
-        backup = new LinkedList<>();
+        backup = new ArrayDeque<>();
+        backupPool = new ArrayDeque<>();
         context = gameContext;
         eventListener = new EnumMap<>(BoardEventType.class);
         this.updateHistory = updateHistory;
@@ -219,7 +307,7 @@ public class Board implements Cloneable, BoardEvent {
         Piece movingPiece = getPiece(move.getFrom());
         Side side = getSideToMove();
 
-        MoveBackup backupMove = new MoveBackup(this, move);
+        MoveBackup backupMove = newMoveBackup(move);
         final boolean isCastle = context.isCastleMove(move);
 
         incrementalHashKey ^= getSideKey(getSideToMove());
@@ -227,105 +315,44 @@ public class Board implements Cloneable, BoardEvent {
             incrementalHashKey ^= getEnPassantKey(getEnPassantTarget());
         }
 
-        if (PieceType.KING.equals(movingPiece.getPieceType())) {
-            if (isCastle) {
-                if (context.hasCastleRight(move, getCastleRight(side))) {
-                    CastleRight c = context.isKingSideCastle(move) ? CastleRight.KING_SIDE :
-                            CastleRight.QUEEN_SIDE;
-                    Move rookMove = context.getRookCastleMove(side, c);
-                    movePiece(rookMove, backupMove);
-                } else {
-                    return false;
-                }
-            }
-            if (getCastleRight(side) != CastleRight.NONE) {
-                incrementalHashKey ^= getCastleRightKey(side);
-                getCastleRight().put(side, CastleRight.NONE);
-            }
-        } else if (PieceType.ROOK == movingPiece.getPieceType()
-                && CastleRight.NONE != getCastleRight(side)) {
-            final Move oo = context.getRookoo(side);
-            final Move ooo = context.getRookooo(side);
-
-            if (move.getFrom() == oo.getFrom()) {
-                if (CastleRight.KING_AND_QUEEN_SIDE == getCastleRight(side)) {
-                    incrementalHashKey ^= getCastleRightKey(side);
-                    getCastleRight().put(side, CastleRight.QUEEN_SIDE);
-                    incrementalHashKey ^= getCastleRightKey(side);
-                } else if (CastleRight.KING_SIDE == getCastleRight(side)) {
-                    incrementalHashKey ^= getCastleRightKey(side);
-                    getCastleRight().put(side, CastleRight.NONE);
-                }
-            } else if (move.getFrom() == ooo.getFrom()) {
-                if (CastleRight.KING_AND_QUEEN_SIDE == getCastleRight(side)) {
-                    incrementalHashKey ^= getCastleRightKey(side);
-                    getCastleRight().put(side, CastleRight.KING_SIDE);
-                    incrementalHashKey ^= getCastleRightKey(side);
-                } else if (CastleRight.QUEEN_SIDE == getCastleRight(side)) {
-                    incrementalHashKey ^= getCastleRightKey(side);
-                    getCastleRight().put(side, CastleRight.NONE);
-                }
+        if (PieceType.KING.equals(movingPiece.getPieceType()) && isCastle) {
+            if (context.hasCastleRight(move, getCastleRight(side))) {
+                CastleRight c = context.isKingSideCastle(move) ? CastleRight.KING_SIDE :
+                        CastleRight.QUEEN_SIDE;
+                Move rookMove = context.getRookCastleMove(side, c);
+                movePiece(rookMove, backupMove);
+            } else {
+                backupPool.push(backupMove);
+                return false;
             }
         }
 
         Piece capturedPiece = movePiece(move, backupMove);
-
-        if (PieceType.ROOK == capturedPiece.getPieceType()) {
-            final Move oo = context.getRookoo(side.flip());
-            final Move ooo = context.getRookooo(side.flip());
-            if (move.getTo() == oo.getFrom()) {
-                if (CastleRight.KING_AND_QUEEN_SIDE == getCastleRight(side.flip())) {
-                    incrementalHashKey ^= getCastleRightKey(side.flip());
-                    getCastleRight().put(side.flip(), CastleRight.QUEEN_SIDE);
-                    incrementalHashKey ^= getCastleRightKey(side.flip());
-                } else if (CastleRight.KING_SIDE == getCastleRight(side.flip())) {
-                    incrementalHashKey ^= getCastleRightKey(side.flip());
-                    getCastleRight().put(side.flip(), CastleRight.NONE);
-                }
-            } else if (move.getTo() == ooo.getFrom()) {
-                if (CastleRight.KING_AND_QUEEN_SIDE == getCastleRight(side.flip())) {
-                    incrementalHashKey ^= getCastleRightKey(side.flip());
-                    getCastleRight().put(side.flip(), CastleRight.KING_SIDE);
-                    incrementalHashKey ^= getCastleRightKey(side.flip());
-                } else if (CastleRight.QUEEN_SIDE == getCastleRight(side.flip())) {
-                    incrementalHashKey ^= getCastleRightKey(side.flip());
-                    getCastleRight().put(side.flip(), CastleRight.NONE);
-                }
-            }
-        }
+        updateCastleRights(side, movingPiece, move.getFrom(), move.getTo(), capturedPiece);
 
         if (Piece.NONE == capturedPiece) {
-            setHalfMoveCounter(getHalfMoveCounter() + 1);
+            halfMoveCounter++;
         } else {
-            setHalfMoveCounter(0);
+            halfMoveCounter = 0;
         }
 
         setEnPassantTarget(Square.NONE);
         setEnPassant(Square.NONE);
 
         if (PieceType.PAWN == movingPiece.getPieceType()) {
-            if (Math.abs(move.getTo().getRank().ordinal() -
-                    move.getFrom().getRank().ordinal()) == 2) {
-                Piece otherPawn = Piece.make(side.flip(), PieceType.PAWN);
-                setEnPassant(findEnPassant(move.getTo(), side));
-                if (hasPiece(otherPawn, move.getTo().getSideSquares()) &&
-                        verifyNotPinnedPiece(side, getEnPassant(), move.getTo())) {
-                    setEnPassantTarget(move.getTo());
-                    incrementalHashKey ^= getEnPassantKey(getEnPassantTarget());
-                }
-            }
-            setHalfMoveCounter(0);
+            updateEnPassant(side, move.getFrom(), move.getTo());
+            halfMoveCounter = 0;
         }
 
         if (side == Side.BLACK) {
-            setMoveCounter(getMoveCounter() + 1);
+            moveCounter++;
         }
 
         setSideToMove(side.flip());
         incrementalHashKey ^= getSideKey(getSideToMove());
 
         if (updateHistory) {
-            getHistory().addLast(getIncrementalHashKey());
+            addHistory(incrementalHashKey);
         }
 
         backup.add(backupMove);
@@ -350,9 +377,9 @@ public class Board implements Cloneable, BoardEvent {
     public boolean doNullMove() {
 
         Side side = getSideToMove();
-        MoveBackup backupMove = new MoveBackup(this, emptyMove);
+        MoveBackup backupMove = newMoveBackup(emptyMove);
 
-        setHalfMoveCounter(getHalfMoveCounter() + 1);
+        halfMoveCounter++;
 
         setEnPassantTarget(Square.NONE);
         setEnPassant(Square.NONE);
@@ -361,7 +388,7 @@ public class Board implements Cloneable, BoardEvent {
         setSideToMove(side.flip());
         incrementalHashKey ^= getSideKey(getSideToMove());
         if (updateHistory) {
-            getHistory().addLast(getIncrementalHashKey());
+            addHistory(incrementalHashKey);
         }
         backup.add(backupMove);
         return true;
@@ -377,7 +404,7 @@ public class Board implements Cloneable, BoardEvent {
         Move move = null;
         final MoveBackup b = backup.removeLast();
         if (updateHistory) {
-            getHistory().removeLast();
+            removeHistory();
         }
         if (b != null) {
             move = b.getMove();
@@ -390,10 +417,240 @@ public class Board implements Cloneable, BoardEvent {
                     eventListener.get(BoardEventType.ON_UNDO_MOVE)) {
                 evl.onEvent(b);
             }
+        } else if (b != null && !b.retained) {
+            // the backup is recycled only when no caller or listener could have kept a reference to it
+            backupPool.push(b);
         }
         return move;
     }
 
+    /*
+     * takes a move backup from the pool of the backups released by undoMove, so that doMove does not allocate
+     */
+    private MoveBackup newMoveBackup(Move move) {
+        MoveBackup b = backupPool.poll();
+        if (b == null) {
+            return new MoveBackup(this, move);
+        }
+        b.makeBackup(this, move);
+        return b;
+    }
+
+    /**
+     * Executes a move encoded as a packed integer (see {@link PackedMove}) on the board, along a fast path meant for
+     * search and perft routines. The move is assumed to be legal, or at least pseudo-legal, in the current position,
+     * as those returned by {@link MoveGenerator#generateLegalMoves(Board, int[])}, and no validation is performed.
+     * <p>
+     * Instead of allocating a {@link MoveBackup}, the state needed to revert the move is saved in a stack of primitive
+     * undo records, indexed by ply. Moves executed with this method must be reverted with {@link #unmakeMove()}, in
+     * the reverse order, and they are not included in the list returned by {@link #getBackup()}. Mixing this method
+     * with {@link #doMove(Move)} and {@link #undoMove()} is allowed, as long as each move is reverted by the method
+     * paired with the one that executed it.
+     *
+     * @param move the packed move to execute
+     */
+    public void makeMove(int move) {
+        Square from = PackedMove.getFrom(move);
+        Square to = PackedMove.getTo(move);
+        Piece promotion = PackedMove.getPromotion(move);
+        Piece movingPiece = getPiece(from);
+        Side side = getSideToMove();
+
+        Piece capturedPiece = getPiece(to);
+        Square capturedSquare = to;
+        if (PieceType.PAWN == movingPiece.getPieceType() && Piece.NONE == capturedPiece &&
+                from.getFile() != to.getFile() && Square.NONE != getEnPassantTarget()) {
+            capturedSquare = getEnPassantTarget();
+            capturedPiece = getPiece(capturedSquare);
+        }
+
+        if (undoPly == undoMoves.length) {
+            int capacity = undoPly * 2;
+            undoMoves = Arrays.copyOf(undoMoves, capacity);
+            undoStates = Arrays.copyOf(undoStates, capacity);
+            undoHalfMoveCounters = Arrays.copyOf(undoHalfMoveCounters, capacity);
+            undoHashKeys = Arrays.copyOf(undoHashKeys, capacity);
+        }
+        undoMoves[undoPly] = move;
+        undoStates[undoPly] = capturedPiece.ordinal() |
+                capturedSquare.ordinal() << UNDO_CAPTURED_SQUARE_SHIFT |
+                castleRights << UNDO_CASTLE_SHIFT |
+                getEnPassant().ordinal() << UNDO_EP_SHIFT |
+                getEnPassantTarget().ordinal() << UNDO_EP_TARGET_SHIFT;
+        undoHalfMoveCounters[undoPly] = halfMoveCounter;
+        undoHashKeys[undoPly] = incrementalHashKey;
+        undoPly++;
+
+        incrementalHashKey ^= getSideKey(side);
+        if (getEnPassantTarget() != Square.NONE) {
+            incrementalHashKey ^= getEnPassantKey(getEnPassantTarget());
+        }
+
+        if (PieceType.KING == movingPiece.getPieceType()) {
+            Move rookMove = getRookCastleMove(side, from, to);
+            if (rookMove != null) {
+                Piece rook = Piece.make(side, PieceType.ROOK);
+                unsetPiece(rook, rookMove.getFrom());
+                setPiece(rook, rookMove.getTo());
+            }
+        }
+
+        unsetPiece(movingPiece, from);
+        if (Piece.NONE != capturedPiece) {
+            unsetPiece(capturedPiece, capturedSquare);
+        }
+        setPiece(Piece.NONE != promotion ? promotion : movingPiece, to);
+        updateCastleRights(side, movingPiece, from, to, capturedPiece);
+
+        halfMoveCounter = Piece.NONE == capturedPiece ? halfMoveCounter + 1 : 0;
+        setEnPassantTarget(Square.NONE);
+        setEnPassant(Square.NONE);
+        if (PieceType.PAWN == movingPiece.getPieceType()) {
+            updateEnPassant(side, from, to);
+            halfMoveCounter = 0;
+        }
+        if (side == Side.BLACK) {
+            moveCounter++;
+        }
+
+        setSideToMove(side.flip());
+        incrementalHashKey ^= getSideKey(getSideToMove());
+
+        if (updateHistory) {
+            addHistory(incrementalHashKey);
+        }
+        if (isEnableEvents() && eventListener.get(BoardEventType.ON_MOVE).size() > 0) {
+            Move m = PackedMove.toMove(move);
+            for (BoardEventListener evl : eventListener.get(BoardEventType.ON_MOVE)) {
+                evl.onEvent(m);
+            }
+        }
+    }
+
+    /**
+     * Reverts the latest move executed with {@link #makeMove(int)} and returns it.
+     *
+     * @return the reverted packed move
+     * @throws IllegalStateException if no moves were previously executed with {@link #makeMove(int)}
+     */
+    public int unmakeMove() {
+        if (undoPly == 0) {
+            throw new IllegalStateException("No moves to unmake");
+        }
+        undoPly--;
+        int move = undoMoves[undoPly];
+        int state = undoStates[undoPly];
+        Square from = PackedMove.getFrom(move);
+        Square to = PackedMove.getTo(move);
+        Side side = getSideToMove().flip();
+        Piece movingPiece = getPiece(to);
+
+        unsetPiece(movingPiece, to);
+        if (PackedMove.isPromotion(move)) {
+            setPiece(Piece.make(side, PieceType.PAWN), from);
+        } else {
+            setPiece(movingPiece, from);
+        }
+        if (PieceType.KING == movingPiece.getPieceType()) {
+            Move rookMove = getRookCastleMove(side, from, to);
+            if (rookMove != null) {
+                Piece rook = Piece.make(side, PieceType.ROOK);
+                unsetPiece(rook, rookMove.getTo());
+                setPiece(rook, rookMove.getFrom());
+            }
+        }
+        Piece capturedPiece = Piece.allPieces[state & UNDO_PIECE_MASK];
+        if (Piece.NONE != capturedPiece) {
+            setPiece(capturedPiece, allSquares[(state >>> UNDO_CAPTURED_SQUARE_SHIFT) & UNDO_SQUARE_MASK]);
+        }
+
+        castleRights = (state >>> UNDO_CASTLE_SHIFT) & CASTLE_RIGHTS_MASK;
+        cachedData = 0;
+        setEnPassant(allSquares[(state >>> UNDO_EP_SHIFT) & UNDO_SQUARE_MASK]);
+        setEnPassantTarget(allSquares[(state >>> UNDO_EP_TARGET_SHIFT) & UNDO_SQUARE_MASK]);
+        halfMoveCounter = undoHalfMoveCounters[undoPly];
+        if (side == Side.BLACK) {
+            moveCounter--;
+        }
+        setSideToMove(side);
+        incrementalHashKey = undoHashKeys[undoPly];
+
+        if (updateHistory) {
+            removeHistory();
+        }
+        if (isEnableEvents() && eventListener.get(BoardEventType.ON_UNDO_MOVE).size() > 0) {
+            MoveBackup b = new MoveBackup(this, PackedMove.toMove(move));
+            for (BoardEventListener evl : eventListener.get(BoardEventType.ON_UNDO_MOVE)) {
+                evl.onEvent(b);
+            }
+        }
+        return move;
+    }
+
+    /*
+     * returns the rook move of a castle, or null if the king move is not a castle
+     */
+    private Move getRookCastleMove(Side side, Square from, Square to) {
+        Move oo = context.getoo(side);
+        if (oo.getFrom() == from && oo.getTo() == to) {
+            return context.getRookoo(side);
+        }
+        Move ooo = context.getooo(side);
+        if (ooo.getFrom() == from && ooo.getTo() == to) {
+            return context.getRookooo(side);
+        }
+        return null;
+    }
+
+    /*
+     * updates the castle rights after a piece moved from a square to another, possibly capturing a rook
+     */
+    private void updateCastleRights(Side side, Piece movingPiece, Square from, Square to, Piece capturedPiece) {
+        if (PieceType.KING == movingPiece.getPieceType()) {
+            revokeCastleRight(side, CastleRight.KING_AND_QUEEN_SIDE);
+        } else if (PieceType.ROOK == movingPiece.getPieceType()) {
+            if (from == context.getRookoo(side).getFrom()) {
+                revokeCastleRight(side, CastleRight.KING_SIDE);
+            } else if (from == context.getRookooo(side).getFrom()) {
+                revokeCastleRight(side, CastleRight.QUEEN_SIDE);
+            }
+        }
+        if (PieceType.ROOK == capturedPiece.getPieceType()) {
+            Side other = side.flip();
+            if (to == context.getRookoo(other).getFrom()) {
+                revokeCastleRight(other, CastleRight.KING_SIDE);
+            } else if (to == context.getRookooo(other).getFrom()) {
+                revokeCastleRight(other, CastleRight.QUEEN_SIDE);
+            }
+        }
+    }
+
+    private void revokeCastleRight(Side side, CastleRight revoked) {
+        CastleRight current = getCastleRight(side);
+        CastleRight updated = castleRightFromBits[castleRightBits[current.ordinal()] &
+                ~castleRightBits[revoked.ordinal()]];
+        if (updated != current) {
+            incrementalHashKey ^= castleKeys[castleRights];
+            setCastleRight(side, updated);
+            incrementalHashKey ^= castleKeys[castleRights];
+        }
+    }
+
+    /*
+     * sets the en passant squares after a pawn move, when an enemy pawn can capture it
+     */
+    private void updateEnPassant(Side side, Square from, Square to) {
+        if (Math.abs(to.getRank().ordinal() - from.getRank().ordinal()) == 2) {
+            Piece otherPawn = Piece.make(side.flip(), PieceType.PAWN);
+            setEnPassant(findEnPassant(to, side));
+            if (hasPiece(otherPawn, to.getSideSquares()) &&
+                    verifyNotPinnedPiece(side, getEnPassant(), to)) {
+                setEnPassantTarget(to);
+                incrementalHashKey ^= getEnPassantKey(getEnPassantTarget());
+            }
+        }
+    }
+
     /**
      * Moves a piece on the board and updates the backup passed in input. It returns the captured piece, if any, or
      * {@link Piece#NONE} otherwise.
@@ -580,6 +837,7 @@ public class Board implements Cloneable, BoardEvent {
      */
     public void setSideToMove(Side sideToMove) {
         this.sideToMove = sideToMove;
+        cachedData = 0;
     }
 
     /**
@@ -601,6 +859,7 @@ public class Board implements Cloneable, BoardEvent {
      */
     public void setEnPassantTarget(Square enPassant) {
         this.enPassantTarget = enPassant;
+        cachedData = 0;
     }
 
     /**
@@ -622,6 +881,7 @@ public class Board implements Cloneable, BoardEvent {
      */
     public void setEnPassant(Square enPassant) {
         this.enPassant = enPassant;
+        cachedData = 0;
     }
 
     /**
@@ -670,16 +930,32 @@ public class Board implements Cloneable, BoardEvent {
      * @return the castle right of the side
      */
     public CastleRight getCastleRight(Side side) {
-        return castleRight.get(side);
+        return castleRightFromBits[(castleRights >>> (2 * side.ordinal())) & 3];
     }
 
     /**
-     * Returns the castle rights for both sides, stored in an {@link EnumMap}.
+     * Sets the castle right of a given side.
+     * <p>
+     * <b>N.B.</b>: the operation does not update the hash keys of the board.
+     *
+     * @param side        the side for which the castle right must be set
+     * @param castleRight the castle right to set
+     */
+    public void setCastleRight(Side side, CastleRight castleRight) {
+        int shift = 2 * side.ordinal();
+        castleRights = (castleRights & ~(3 << shift)) | castleRightBits[castleRight.ordinal()] << shift;
+        cachedData = 0;
+    }
+
+    /**
+     * Returns the castle rights for both sides, stored in an {@link EnumMap}. The map is backed by the board, hence it
+     * reflects the moves performed on the board afterwards, and the castle rights put into the map are set on the
+     * board.
      *
      * @return the map containing the castle rights for both sides
      */
     public EnumMap<Side, CastleRight> getCastleRight() {
-        return castleRight;
+        return castleRightMap;
     }
 
     /**
@@ -701,12 +977,17 @@ public class Board implements Cloneable, BoardEvent {
     }
 
     /**
-     * Returns the current ordered list of move backups generated from the moves performed on the board.
+     * Returns the current ordered list of move backups generated from the moves performed on the board. The list is a
+     * copy, hence it does not reflect the moves performed on the board afterwards, while the backups it contains are
+     * never reused by the board, even after their moves are reverted.
      *
      * @return the list of move backups
      */
     public LinkedList<MoveBackup> getBackup() {
-        return backup;
+        for (MoveBackup b : backup) {
+            b.retained = true;
+        }
+        return new LinkedList<>(backup);
     }
 
     /**
@@ -716,15 +997,22 @@ public class Board implements Cloneable, BoardEvent {
         setSideToMove(Side.WHITE);
         setEnPassantTarget(Square.NONE);
         setEnPassant(Square.NONE);
-        setMoveCounter(0);
-        setHalfMoveCounter(0);
-        getHistory().clear();
+        moveCounter = 0;
+        halfMoveCounter = 0;
+        castleRights = 0;
+        historySize = 0;
+        repetitions.clear();
+        cachedData = 0;
 
         Arrays.fill(bitboard, 0L);
         Arrays.fill(bbSide, 0L);
         Arrays.fill(occupation, Piece.NONE);
         backup.clear();
+        undoPly = 0;
         incrementalHashKey = 0;
+        polyglotPieceKey = 0;
+        pawnKingKey = 0;
+        materialKey = 0;
     }
 
     /**
@@ -739,8 +1027,12 @@ public class Board implements Cloneable, BoardEvent {
         bitboard[piece.ordinal()] |= sq.getBitboard();
         bbSide[piece.getPieceSide().ordinal()] |= sq.getBitboard();
         occupation[sq.ordinal()] = piece;
+        cachedData = 0;
         if (piece != Piece.NONE && sq != Square.NONE) {
             incrementalHashKey ^= getPieceSquareKey(piece, sq);
+            polyglotPieceKey ^= PolyglotKeys.pieceSquareKeys[piece.ordinal()][sq.ordinal()];
+            pawnKingKey ^= pawnKingSquareKeys[piece.ordinal()][sq.ordinal()];
+            materialKey ^= materialKeys[piece.ordinal()][Long.bitCount(bitboard[piece.ordinal()]) - 1];
         }
     }
 
@@ -754,8 +1046,12 @@ public class Board implements Cloneable, BoardEvent {
         bitboard[piece.ordinal()] ^= sq.getBitboard();
         bbSide[piece.getPieceSide().ordinal()] ^= sq.getBitboard();
         occupation[sq.ordinal()] = Piece.NONE;
+        cachedData = 0;
         if (piece != Piece.NONE && sq != Square.NONE) {
             incrementalHashKey ^= getPieceSquareKey(piece, sq);
+            polyglotPieceKey ^= PolyglotKeys.pieceSquareKeys[piece.ordinal()][sq.ordinal()];
+            pawnKingKey ^= pawnKingSquareKeys[piece.ordinal()][sq.ordinal()];
+            materialKey ^= materialKeys[piece.ordinal()][Long.bitCount(bitboard[piece.ordinal()])];
         }
     }
 
@@ -791,23 +1087,23 @@ public class Board implements Cloneable, BoardEvent {
         sideToMove = state.toLowerCase().charAt(0) == 'w' ? Side.WHITE : Side.BLACK;
 
         if (state.contains("KQ")) {
-            castleRight.put(Side.WHITE, CastleRight.KING_AND_QUEEN_SIDE);
+            setCastleRight(Side.WHITE, CastleRight.KING_AND_QUEEN_SIDE);
         } else if (state.contains("K")) {
-            castleRight.put(Side.WHITE, CastleRight.KING_SIDE);
+            setCastleRight(Side.WHITE, CastleRight.KING_SIDE);
         } else if (state.contains("Q")) {
-            castleRight.put(Side.WHITE, CastleRight.QUEEN_SIDE);
+            setCastleRight(Side.WHITE, CastleRight.QUEEN_SIDE);
         } else {
-            castleRight.put(Side.WHITE, CastleRight.NONE);
+            setCastleRight(Side.WHITE, CastleRight.NONE);
         }
 
         if (state.contains("kq")) {
-            castleRight.put(Side.BLACK, CastleRight.KING_AND_QUEEN_SIDE);
+            setCastleRight(Side.BLACK, CastleRight.KING_AND_QUEEN_SIDE);
         } else if (state.contains("k")) {
-            castleRight.put(Side.BLACK, CastleRight.KING_SIDE);
+            setCastleRight(Side.BLACK, CastleRight.KING_SIDE);
         } else if (state.contains("q")) {
-            castleRight.put(Side.BLACK, CastleRight.QUEEN_SIDE);
+            setCastleRight(Side.BLACK, CastleRight.QUEEN_SIDE);
         } else {
-            castleRight.put(Side.BLACK, CastleRight.NONE);
+            setCastleRight(Side.BLACK, CastleRight.NONE);
         }
 
         String[] flags = state.split(StringUtils.SPACE);
@@ -835,7 +1131,7 @@ public class Board implements Cloneable, BoardEvent {
 
         incrementalHashKey = getZobristKey();
         if (updateHistory) {
-            getHistory().addLast(this.getZobristKey());
+            addHistory(incrementalHashKey);
         }
         // call listeners
         if (isEnableEvents() &&
@@ -932,24 +1228,24 @@ public class Board implements Cloneable, BoardEvent {
 
         String rights = StringUtils.EMPTY;
         if (CastleRight.KING_AND_QUEEN_SIDE.
-                equals(castleRight.get(Side.WHITE))) {
+                equals(getCastleRight(Side.WHITE))) {
             rights += "KQ";
         } else if (CastleRight.KING_SIDE.
-                equals(castleRight.get(Side.WHITE))) {
+                equals(getCastleRight(Side.WHITE))) {
             rights += "K";
         } else if (CastleRight.QUEEN_SIDE.
-                equals(castleRight.get(Side.WHITE))) {
+                equals(getCastleRight(Side.WHITE))) {
             rights += "Q";
         }
 
         if (CastleRight.KING_AND_QUEEN_SIDE.
-                equals(castleRight.get(Side.BLACK))) {
+                equals(getCastleRight(Side.BLACK))) {
             rights += "kq";
         } else if (CastleRight.KING_SIDE.
-                equals(castleRight.get(Side.BLACK))) {
+                equals(getCastleRight(Side.BLACK))) {
             rights += "k";
         } else if (CastleRight.QUEEN_SIDE.
-                equals(castleRight.get(Side.BLACK))) {
+                equals(getCastleRight(Side.BLACK))) {
             rights += "q";
         }
 
@@ -970,9 +1266,9 @@ public class Board implements Cloneable, BoardEvent {
 
         if (includeCounters) {
             fen.append(StringUtils.SPACE);
-            fen.append(getHalfMoveCounter());
+            fen.append(halfMoveCounter);
             fen.append(StringUtils.SPACE);
-            fen.append(getMoveCounter());
+            fen.append(moveCounter);
         }
 
         return fen.toString();
@@ -1154,7 +1450,137 @@ public class Board implements Cloneable, BoardEvent {
      * @return {@code true} if the king of the next side to move is attacked
      */
     public boolean isKingAttacked() {
-        return squareAttackedBy(getKingSquare(getSideToMove()), getSideToMove().flip()) != 0;
+        return getCheckers() != 0L;
+    }
+
+    /**
+     * Returns the bitboard representing the enemy pieces giving check to the king of the side to move.
+     * <p>
+     * The value is computed once per position and cached until the board changes.
+     *
+     * @return the bitboard of the pieces giving check, or {@code 0L} if the king of the side to move is not attacked
+     */
+    public long getCheckers() {
+        if ((cachedData & CACHED_CHECKERS) == 0) {
+            checkers = squareAttackedBy(getKingSquare(getSideToMove()), getSideToMove().flip());
+            cachedData |= CACHED_CHECKERS;
+        }
+        return checkers;
+    }
+
+    /**
+     * Returns the bitboard representing the pieces of the side to move that are pinned to their own king, that is, the
+     * pieces which are the only obstacle between the king and an enemy slider (bishop, rook or queen) aligned with it.
+     * A pinned piece can only move along the line connecting the king and the pinning piece.
+     * <p>
+     * The value is computed once per position and cached until the board changes.
+     *
+     * @return the bitboard of the pinned pieces of the side to move
+     */
+    public long getPinnedPieces() {
+        if ((cachedData & CACHED_PINNED_PIECES) == 0) {
+            pinnedPieces = computePinnedPieces();
+            cachedData |= CACHED_PINNED_PIECES;
+        }
+        return pinnedPieces;
+    }
+
+    /**
+     * Returns the bitboard representing all the squares attacked by the pieces of the given side in the current
+     * position, that is, the squares an enemy king could not move to.
+     * <p>
+     * The value is computed once per position and cached until the board changes.
+     *
+     * @param side the attacking side
+     * @return the bitboard of the squares attacked by the side
+     */
+    public long getAttackedSquares(Side side) {
+        final int flag = CACHED_ATTACKED_SQUARES << side.ordinal();
+        if ((cachedData & flag) == 0) {
+            attackedSquares[side.ordinal()] = computeAttackedSquares(side);
+            cachedData |= flag;
+        }
+        return attackedSquares[side.ordinal()];
+    }
+
+    private long computeAttackedSquares(Side side) {
+        final long occupied = getBitboard();
+        final long pawns = getBitboard(Piece.make(side, PieceType.PAWN));
+        long attacks = Side.WHITE == side ?
+                ((pawns << 7) & ~Bitboard.getFilebb(File.FILE_H)) | ((pawns << 9) & ~Bitboard.getFilebb(File.FILE_A)) :
+                ((pawns >>> 9) & ~Bitboard.getFilebb(File.FILE_H)) | ((pawns >>> 7) & ~Bitboard.getFilebb(File.FILE_A));
+        for (long bb = getBitboard(Piece.make(side, PieceType.KNIGHT)); bb != 0L; bb = extractLsb(bb)) {
+            attacks |= Bitboard.getKnightAttacks(Square.squareAt(Bitboard.bitScanForward(bb)), ~0L);
+        }
+        final long queens = getBitboard(Piece.make(side, PieceType.QUEEN));
+        for (long bb = getBitboard(Piece.make(side, PieceType.BISHOP)) | queens; bb != 0L; bb = extractLsb(bb)) {
+            attacks |= Bitboard.getBishopAttacks(occupied, Square.squareAt(Bitboard.bitScanForward(bb)));
+        }
+        for (long bb = getBitboard(Piece.make(side, PieceType.ROOK)) | queens; bb != 0L; bb = extractLsb(bb)) {
+            attacks |= Bitboard.getRookAttacks(occupied, Square.squareAt(Bitboard.bitScanForward(bb)));
+        }
+        for (long bb = getBitboard(Piece.make(side, PieceType.KING)); bb != 0L; bb = extractLsb(bb)) {
+            attacks |= Bitboard.getKingAttacks(Square.squareAt(Bitboard.bitScanForward(bb)), ~0L);
+        }
+        return attacks;
+    }
+
+    /**
+     * Returns the number of legal moves available to the side to move in the current position.
+     * <p>
+     * The value is computed once per position and cached until the board changes.
+     *
+     * @return the number of legal moves
+     */
+    public int getLegalMoveCount() {
+        if ((cachedData & CACHED_LEGAL_MOVE_COUNT) == 0) {
+            legalMoveCount = MoveGenerator.countLegalMoves(this);
+            cachedData |= CACHED_LEGAL_MOVE_COUNT;
+        }
+        return legalMoveCount;
+    }
+
+    /*
+     * checks if the side to move has any legal move, stopping at the first one found
+     */
+    private boolean hasLegalMove() {
+        if ((cachedData & CACHED_LEGAL_MOVE_COUNT) != 0) {
+            return legalMoveCount > 0;
+        }
+        if ((cachedData & CACHED_HAS_LEGAL_MOVE) == 0) {
+            if (legalMoves == null) {
+                legalMoves = new int[MoveGenerator.MAX_MOVES];
+            }
+            hasLegalMove = MoveGenerator.hasLegalMove(this, legalMoves);
+            cachedData |= CACHED_HAS_LEGAL_MOVE;
+        }
+        return hasLegalMove;
+    }
+
+    private long computePinnedPieces() {
+        final Side side = getSideToMove();
+        final Side other = side.flip();
+        final long king = getBitboard(Piece.make(side, PieceType.KING));
+        if (king == 0L) {
+            return 0L;
+        }
+        final int kingIndex = Bitboard.bitScanForward(king);
+        final Square kingSq = Square.squareAt(kingIndex);
+        final long queens = getBitboard(Piece.make(other, PieceType.QUEEN));
+        long snipers = (Bitboard.getRookAttacks(0L, kingSq) &
+                (getBitboard(Piece.make(other, PieceType.ROOK)) | queens)) |
+                (Bitboard.getBishopAttacks(0L, kingSq) &
+                        (getBitboard(Piece.make(other, PieceType.BISHOP)) | queens));
+        final long occupied = getBitboard();
+        long pinned = 0L;
+        while (snipers != 0L) {
+            final long blockers = Bitboard.squaresBetween(Bitboard.bitScanForward(snipers), kingIndex) & occupied;
+            snipers = extractLsb(snipers);
+            if (blockers != 0L && extractLsb(blockers) == 0L) {
+                pinned |= blockers & getBitboard(side);
+            }
+        }
+        return pinned;
     }
 
     /**
@@ -1243,17 +1669,37 @@ public class Board implements Cloneable, BoardEvent {
                 }
             }
         }
+        return isKingSafeAfterMove(move.getFrom(), move.getTo(), fromType, side);
+    }
+
+    /**
+     * Verifies if the packed move still to be executed will leave the resulting board in a valid (legal) position,
+     * that is, if the king of the side to move is not left in check. It is the allocation-free counterpart of
+     * {@code isMoveLegal(move, false)}, meant to be used with the moves generated by
+     * {@link MoveGenerator#generatePseudoLegalMoves(Board, int[])}.
+     *
+     * @param move the packed move to validate
+     * @return {@code true} if the move is considered valid
+     * @see PackedMove
+     * @see Board#isMoveLegal(Move, boolean)
+     */
+    public boolean isMoveLegal(int move) {
+        final Square from = PackedMove.getFrom(move);
+        return isKingSafeAfterMove(from, PackedMove.getTo(move), getPiece(from).getPieceType(), getSideToMove());
+    }
+
+    private boolean isKingSafeAfterMove(Square from, Square to, PieceType fromType, Side side) {
         if (fromType.equals(PieceType.KING)) {
-            if (squareAttackedBy(move.getTo(), side.flip()) != 0L) {
+            if (squareAttackedBy(to, side.flip()) != 0L) {
                 return false;
             }
         }
         Square kingSq = (fromType.equals(PieceType.KING) ?
-                move.getTo() : getKingSquare(side));
+                to : getKingSquare(side));
         Side other = side.flip();
-        long moveTo = move.getTo().getBitboard();
-        long moveFrom = move.getFrom().getBitboard();
-        long ep = getEnPassantTarget() != Square.NONE && move.getTo() == getEnPassant() &&
+        long moveTo = to.getBitboard();
+        long moveFrom = from.getBitboard();
+        long ep = getEnPassantTarget() != Square.NONE && to == getEnPassant() &&
                 (fromType.equals(PieceType.PAWN)) ? getEnPassantTarget().getBitboard() : 0;
         long allPieces = (getBitboard() ^ moveFrom ^ ep) | moveTo;
 
@@ -1330,13 +1776,219 @@ public class Board implements Cloneable, BoardEvent {
     }
 
     /**
-     * Returns the history of the board, represented by the hashes of all the positions occurred on the board.
+     * Returns the static exchange evaluation (SEE) of a move, that is the material balance, from the point of view of
+     * the side moving, of the sequence of captures on the destination square of the move that follows it, when both
+     * sides always recapture with their least valuable piece and stop as soon as capturing is no longer profitable.
+     * <p>
+     * The pieces are valued 100 for a pawn, 300 for a knight or a bishop, 500 for a rook and 900 for a queen. Sliders
+     * attacking the square through other pieces (x-rays) join the exchange as soon as the pieces in front of them are
+     * used, en passant captures and promotions are taken into account, and a king never captures on a square still
+     * defended by the opponent. Pins are not considered. Castling moves and moves of an empty square are evaluated
+     * as 0.
+     * <p>
+     * No object is allocated during the evaluation.
+     *
+     * @param move the move to evaluate
+     * @return the material balance of the exchange initiated by the move
+     * @see Board#seeGreaterOrEqual(Move, int)
+     */
+    public int see(Move move) {
+        return see(PackedMove.encode(move));
+    }
+
+    /**
+     * Returns the value of a piece type used by the static exchange evaluation (SEE), that is 100 for a pawn, 300 for a
+     * knight or a bishop, 500 for a rook, 900 for a queen, 10000 for a king and 0 for {@link PieceType#NONE}. Move
+     * ordering relies on the same values, so that it agrees with the exchange evaluation.
+     *
+     * @param pieceType the piece type
+     * @return the value of the piece type
+     * @see Board#see(Move)
+     */
+    public static int getSeePieceValue(PieceType pieceType) {
+        return seePieceValues[pieceType.ordinal()];
+    }
+
+    /**
+     * Returns the static exchange evaluation (SEE) of a packed move. See {@link Board#see(Move)} for the details.
+     *
+     * @param move the packed move to evaluate
+     * @return the material balance of the exchange initiated by the move
+     * @see PackedMove
+     */
+    public int see(int move) {
+        return see(move, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Checks whether the static exchange evaluation (SEE) of a move is at least the given threshold, e.g. whether a
+     * capture does not lose material when the threshold is 0. It is cheaper than computing the exact value with
+     * {@link Board#see(Move)}, since the exchange is resolved only when the outcome can not be decided by the value of
+     * the pieces involved in the first capture.
+     *
+     * @param move      the move to evaluate
+     * @param threshold the minimum material balance
+     * @return {@code true} if the exchange initiated by the move gains at least the given threshold
+     */
+    public boolean seeGreaterOrEqual(Move move, int threshold) {
+        return seeGreaterOrEqual(PackedMove.encode(move), threshold);
+    }
+
+    /**
+     * Checks whether the static exchange evaluation (SEE) of a packed move is at least the given threshold. See
+     * {@link Board#seeGreaterOrEqual(Move, int)} for the details.
+     *
+     * @param move      the packed move to evaluate
+     * @param threshold the minimum material balance
+     * @return {@code true} if the exchange initiated by the move gains at least the given threshold
+     * @see PackedMove
+     */
+    public boolean seeGreaterOrEqual(int move, int threshold) {
+        return see(move, threshold) >= threshold;
+    }
+
+    /*
+     * swap algorithm: the gain of each capture of the sequence is stored in a list, which is then evaluated backwards
+     * letting each side stop the exchange when recapturing does not pay. When a threshold is given, the evaluation
+     * returns early as soon as its outcome relative to the threshold is known
+     */
+    private int see(int move, int threshold) {
+        final Square from = PackedMove.getFrom(move);
+        final Square to = PackedMove.getTo(move);
+        final Piece moving = getPiece(from);
+        if (Piece.NONE.equals(moving) || isCastleMove(moving, from, to)) {
+            return 0;
+        }
+        final long target = to.getBitboard();
+        final boolean promotionRank = (target & (Bitboard.getRankbb(Rank.RANK_1) |
+                Bitboard.getRankbb(Rank.RANK_8))) != 0L;
+        long occ = getBitboard() ^ from.getBitboard();
+        int captured;
+        if (PieceType.PAWN.equals(moving.getPieceType()) && to == getEnPassant() &&
+                getEnPassantTarget() != Square.NONE && from.getFile() != to.getFile()) {
+            captured = seePieceValues[PieceType.PAWN.ordinal()];
+            occ ^= getEnPassantTarget().getBitboard();
+        } else {
+            Piece victim = getPiece(to);
+            captured = Piece.NONE.equals(victim) ? 0 : seePieceValues[victim.getPieceType().ordinal()];
+        }
+        int onSquare = seePieceValues[moving.getPieceType().ordinal()];
+        int gain = captured;
+        if (PackedMove.isPromotion(move)) {
+            onSquare = seePieceValues[PackedMove.getPromotion(move).getPieceType().ordinal()];
+            gain += onSquare - seePieceValues[PieceType.PAWN.ordinal()];
+        }
+        if (threshold != Integer.MIN_VALUE) {
+            // the opponent can always stop the exchange, or recapture once letting us stop it
+            if (gain < threshold) {
+                return gain;
+            }
+            if (!promotionRank && gain - onSquare >= threshold) {
+                return gain;
+            }
+        }
+
+        final long bishopsAndQueens = getBitboard(Piece.WHITE_BISHOP) | getBitboard(Piece.BLACK_BISHOP) |
+                getBitboard(Piece.WHITE_QUEEN) | getBitboard(Piece.BLACK_QUEEN);
+        final long rooksAndQueens = getBitboard(Piece.WHITE_ROOK) | getBitboard(Piece.BLACK_ROOK) |
+                getBitboard(Piece.WHITE_QUEEN) | getBitboard(Piece.BLACK_QUEEN);
+        long attackers = (squareAttackedBy(to, Side.WHITE, occ) | squareAttackedBy(to, Side.BLACK, occ)) & occ;
+        Side side = moving.getPieceSide().flip();
+        int depth = 0;
+        seeGains[0] = gain;
+        while (depth < SEE_MAX_CAPTURES - 1) {
+            long sideAttackers = attackers & getBitboard(side);
+            if (sideAttackers == 0L) {
+                break;
+            }
+            PieceType type = PieceType.PAWN;
+            long attacker = 0L;
+            for (PieceType pieceType : seePieceTypes) {
+                attacker = sideAttackers & getBitboard(Piece.make(side, pieceType));
+                if (attacker != 0L) {
+                    type = pieceType;
+                    break;
+                }
+            }
+            if (PieceType.KING.equals(type) && (attackers & getBitboard(side.flip())) != 0L) {
+                break;
+            }
+            depth++;
+            seeGains[depth] = onSquare - seeGains[depth - 1];
+            onSquare = seePieceValues[type.ordinal()];
+            if (PieceType.PAWN.equals(type) && promotionRank) {
+                onSquare = seePieceValues[PieceType.QUEEN.ordinal()];
+                seeGains[depth] += onSquare - seePieceValues[PieceType.PAWN.ordinal()];
+            }
+            occ ^= attacker & -attacker;
+            if (PieceType.PAWN.equals(type) || PieceType.BISHOP.equals(type) || PieceType.QUEEN.equals(type)) {
+                attackers |= Bitboard.getBishopAttacks(occ, to) & bishopsAndQueens;
+            }
+            if (PieceType.ROOK.equals(type) || PieceType.QUEEN.equals(type)) {
+                attackers |= Bitboard.getRookAttacks(occ, to) & rooksAndQueens;
+            }
+            attackers &= occ;
+            side = side.flip();
+        }
+        for (int i = depth; i > 0; i--) {
+            seeGains[i - 1] = -Math.max(-seeGains[i - 1], seeGains[i]);
+        }
+        return seeGains[0];
+    }
+
+    private boolean isCastleMove(Piece moving, Square from, Square to) {
+        return PieceType.KING.equals(moving.getPieceType()) &&
+                (Math.abs(from.getFile().ordinal() - to.getFile().ordinal()) > 1 ||
+                        (getBitboard(moving.getPieceSide()) & to.getBitboard()) != 0L);
+    }
+
+    /**
+     * Returns the history of the board, represented by the hashes of all the positions occurred on the board. The list
+     * is a copy of the history, hence it does not reflect the moves performed on the board afterwards.
      *
      * @return the list of hashes of all the positions occurred on the board
+     * @see Board#getHistoryKey(int)
      * @see Board#getIncrementalHashKey()
      */
     public LinkedList<Long> getHistory() {
-        return history;
+        LinkedList<Long> list = new LinkedList<>();
+        for (int i = 0; i < historySize; i++) {
+            list.add(history[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Returns the number of positions in the history of the board.
+     *
+     * @return the size of the history
+     */
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    /**
+     * Returns the hash of the position at the given index in the history of the board, without copying the history.
+     *
+     * @param index the index of the position, starting from zero for the first position of the history
+     * @return the hash of the position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @see Board#getHistory()
+     */
+    public long getHistoryKey(int index) {
+        return history[Objects.checkIndex(index, historySize)];
+    }
+
+    private void addHistory(long key) {
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
+        }
+        history[historySize++] = key;
+        repetitions.increment(key);
+    }
+
+    private void removeHistory() {
+        repetitions.decrement(history[--historySize]);
     }
 
     /**
@@ -1345,17 +1997,7 @@ public class Board implements Cloneable, BoardEvent {
      * @return {@code true} if the king of the side to move is checkmated
      */
     public boolean isMated() {
-        try {
-            if (isKingAttacked()) {
-                final List<Move> l = MoveGenerator.generateLegalMoves(this);
-                if (l.size() == 0) {
-                    return true;
-                }
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return false;
+        return isKingAttacked() && !hasLegalMove();
     }
 
     /**
@@ -1377,27 +2019,61 @@ public class Board implements Cloneable, BoardEvent {
         if (isInsufficientMaterial()) {
             return true;
         }
-        if (getHalfMoveCounter() >= 100) {
+        if (halfMoveCounter >= 100) {
             return true;
         }
         return isStaleMate();
 
     }
 
+    /**
+     * Returns the status of the game in the current position, verifying at once all the conditions that end a game:
+     * checkmate, stalemate, threefold repetition, insufficient material and the fifty-move rule. Checkmate takes
+     * precedence over any draw condition.
+     * <p>
+     * Differently from invoking {@link Board#isMated()}, {@link Board#isDraw()} and the like one after the other, the
+     * attacks to the king and the availability of legal moves are computed only once, and the generation of the legal
+     * moves stops as soon as one is found.
+     *
+     * @return the status of the game in the current position
+     */
+    public GameStatus getGameStatus() {
+        if (!hasLegalMove()) {
+            return isKingAttacked() ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        if (isRepetition()) {
+            return GameStatus.THREEFOLD_REPETITION;
+        }
+        if (isInsufficientMaterial()) {
+            return GameStatus.INSUFFICIENT_MATERIAL;
+        }
+        if (halfMoveCounter >= 100) {
+            return GameStatus.FIFTY_MOVE_RULE;
+        }
+        return GameStatus.ONGOING;
+    }
+
     /**
      * Verifies if the current position has been repeated at least <i>n</i> times, where <i>n</i> is provided in input.
+     * <p>
+     * The board keeps count of the occurrences of each position in its history, so that the check takes constant time
+     * when the position occurred less than <i>n</i> times. Otherwise, only the positions played since the last
+     * irreversible move, as told by the half-move clock, are scanned.
      *
      * @param n the number of repetitions to check in the position
      * @return {@code true} if the position has been repeated at least <i>n</i> times
      */
     public boolean isRepetition(int n) {
 
-        final int i = Math.min(getHistory().size() - 1, getHalfMoveCounter());
-        if (getHistory().size() >= 4) {
-            long lastKey = getHistory().get(getHistory().size() - 1);
+        final int i = Math.min(historySize - 1, halfMoveCounter);
+        if (historySize >= 4) {
+            long lastKey = history[historySize - 1];
+            if (repetitions.count(lastKey) < Math.max(n, 2)) {
+                return false;
+            }
             int rep = 0;
             for (int x = 4; x <= i; x += 2) {
-                final long k = getHistory().get(getHistory().size() - x - 1);
+                final long k = history[historySize - x - 1];
                 if (k == lastKey && ++rep >= n - 1) {
                     return true;
                 }
@@ -1481,17 +2157,7 @@ public class Board implements Cloneable, BoardEvent {
      * @return {@code true} if the king of the side to move is stalemated
      */
     public boolean isStaleMate() {
-        try {
-            if (!isKingAttacked()) {
-                List<Move> l = MoveGenerator.generateLegalMoves(this);
-                if (l.size() == 0) {
-                    return true;
-                }
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return false;
+        return !isKingAttacked() && !hasLegalMove();
     }
 
     /**
@@ -1619,7 +2285,8 @@ public class Board implements Cloneable, BoardEvent {
     public boolean strictEquals(Object obj) {
         if (obj instanceof Board) {
             Board board = (Board) obj;
-            return equals(board) && board.getHistory().equals(this.getHistory());
+            return equals(board) && Arrays.equals(board.history, 0, board.historySize,
+                    this.history, 0, this.historySize);
         }
         return false;
     }
@@ -1643,18 +2310,10 @@ public class Board implements Cloneable, BoardEvent {
      * @see <a href="https://en.wikipedia.org/wiki/Zobrist_hashing">Zobrist hashing in Wikipedia</a>
      */
     public long getZobristKey() {
-        long hash = 0;
-        if (getCastleRight(Side.WHITE) != CastleRight.NONE) {
-            hash ^= getCastleRightKey(Side.WHITE);
-        }
-        if (getCastleRight(Side.BLACK) != CastleRight.NONE) {
-            hash ^= getCastleRightKey(Side.BLACK);
-        }
-        for (Square sq : Square.values()) {
-            Piece piece = getPiece(sq);
-            if (!Piece.NONE.equals(piece) && !Square.NONE.equals(sq)) {
-                hash ^= getPieceSquareKey(piece, sq);
-            }
+        long hash = castleKeys[castleRights];
+        for (long pieces = getBitboard(); pieces != 0L; pieces = extractLsb(pieces)) {
+            int square = Bitboard.bitScanForward(pieces);
+            hash ^= pieceSquareKeys[occupation[square].ordinal()][square];
         }
         hash ^= getSideKey(getSideToMove());
 
@@ -1665,20 +2324,39 @@ public class Board implements Cloneable, BoardEvent {
         return hash;
     }
 
-    private long getCastleRightKey(Side side) {
-        return keys.get(3 * getCastleRight(side).ordinal() + 300 + 3 * side.ordinal());
+    /**
+     * Returns the Polyglot hash of this board, that is the hash used to index the positions of the opening books in
+     * the Polyglot format. Differently from {@link Board#getZobristKey()}, the value does not depend on the random keys
+     * of this library, but on the fixed set of keys defined by the format.
+     * <p>
+     * The keys of the pieces are maintained incrementally while the pieces are moved, so that the hash is obtained
+     * adding just the keys of the castle rights, of the en passant file and of the side to move.
+     *
+     * @return the Polyglot hash of this board
+     * @see PolyglotKeys
+     */
+    public long getPolyglotKey() {
+        long key = polyglotPieceKey ^ PolyglotKeys.castleKeys[castleRights];
+        if (enPassant != Square.NONE && (Bitboard.getPawnAttacks(sideToMove.flip(), enPassant) &
+                getBitboard(Piece.make(sideToMove, PieceType.PAWN))) != 0L) {
+            key ^= PolyglotKeys.enPassantKeys[enPassant.getFile().ordinal()];
+        }
+        if (Side.WHITE.equals(sideToMove)) {
+            key ^= PolyglotKeys.turnKey;
+        }
+        return key;
     }
 
     private long getSideKey(Side side) {
-        return keys.get(3 * side.ordinal() + 500);
+        return sideKeys[side.ordinal()];
     }
 
     private long getEnPassantKey(Square enPassantTarget) {
-        return keys.get(3 * enPassantTarget.ordinal() + 400);
+        return enPassantKeys[enPassantTarget.ordinal()];
     }
 
     private long getPieceSquareKey(Piece piece, Square square) {
-        return keys.get(57 * piece.ordinal() + 13 * square.ordinal());
+        return pieceSquareKeys[piece.ordinal()][square.ordinal()];
     }
 
     /**
@@ -1761,9 +2439,11 @@ public class Board implements Cloneable, BoardEvent {
         Board copy = new Board(getContext(), this.updateHistory);
         copy.loadFromFen(this.getFen());
         copy.setEnPassantTarget(this.getEnPassantTarget());
-        copy.getHistory().clear();
-        for (long key : getHistory()) {
-            copy.getHistory().add(key);
+        copy.history = Arrays.copyOf(history, history.length);
+        copy.historySize = historySize;
+        copy.repetitions.clear();
+        for (int i = 0; i < historySize; i++) {
+            copy.repetitions.increment(history[i]);
         }
         return copy;
     }
@@ -1787,6 +2467,51 @@ public class Board implements Cloneable, BoardEvent {
         incrementalHashKey = hashKey;
     }
 
+    /**
+     * Returns the hash key of the pawn structure, that is a Zobrist key computed using only the pawns and the kings
+     * on the board. Positions sharing the same placement of pawns and kings have the same key, regardless of the
+     * other pieces, the side to move, the castle rights and the en passant target, so that the key can be used to
+     * cache the results of the analysis of the pawn structure. The key is maintained incrementally while the pieces
+     * are moved.
+     *
+     * @return the hash key of the pawns and kings on the board
+     */
+    public long getPawnKingKey() {
+        return pawnKingKey;
+    }
+
+    /**
+     * Sets the hash key of the pawn structure, replacing the previous one.
+     *
+     * @param pawnKingKey the hash key of the pawns and kings to set
+     * @see Board#getPawnKingKey()
+     */
+    public void setPawnKingKey(long pawnKingKey) {
+        this.pawnKingKey = pawnKingKey;
+    }
+
+    /**
+     * Returns the material signature of the board, that is a hash key depending only on the number of pieces of each
+     * kind on the board, and not on their placement. Positions with the same material balance have the same key, so
+     * that the key can be used to cache the evaluation of specific material configurations, e.g. endgames. The key is
+     * maintained incrementally while the pieces are added to and removed from the board.
+     *
+     * @return the material signature of the board
+     */
+    public long getMaterialKey() {
+        return materialKey;
+    }
+
+    /**
+     * Sets the material signature of the board, replacing the previous one.
+     *
+     * @param materialKey the material signature to set
+     * @see Board#getMaterialKey()
+     */
+    public void setMaterialKey(long materialKey) {
+        this.materialKey = materialKey;
+    }
+
     private boolean pawnCanBeCapturedEnPassant() {
         return
                 squareAttackedByPieceType(getEnPassant(), getSideToMove(), PieceType.PAWN) != 0
@@ -1818,4 +2543,112 @@ public class Board implements Cloneable, BoardEvent {
 
         return (getBitboard() ^ pieces ^ target.getBitboard()) | enPassant.getBitboard();
     }
+
+    /*
+     * a map backed by the castle rights stored in the bit mask, setting on the board the castle rights put into it. The
+     * entries of the underlying map are refreshed before being read in bulk, e.g. by its views or when it is copied
+     */
+    private class CastleRightMap extends EnumMap<Side, CastleRight> {
+
+        private static final long serialVersionUID = 1L;
+
+        CastleRightMap() {
+            super(Side.class);
+        }
+
+        private void refresh() {
+            super.put(Side.WHITE, getCastleRight(Side.WHITE));
+            super.put(Side.BLACK, getCastleRight(Side.BLACK));
+        }
+
+        @Override
+        public CastleRight get(Object key) {
+            return key instanceof Side ? getCastleRight((Side) key) : null;
+        }
+
+        @Override
+        public CastleRight put(Side side, CastleRight castleRight) {
+            CastleRight previous = getCastleRight(side);
+            setCastleRight(side, castleRight == null ? CastleRight.NONE : castleRight);
+            return previous;
+        }
+
+        @Override
+        public CastleRight remove(Object key) {
+            return key instanceof Side ? put((Side) key, CastleRight.NONE) : null;
+        }
+
+        @Override
+        public void putAll(Map<? extends Side, ? extends CastleRight> m) {
+            for (Map.Entry<? extends Side, ? extends CastleRight> entry : m.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public void clear() {
+            put(Side.WHITE, CastleRight.NONE);
+            put(Side.BLACK, CastleRight.NONE);
+        }
+
+        @Override
+        public int size() {
+            refresh();
+            return super.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            refresh();
+            return super.containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            refresh();
+            return super.containsValue(value);
+        }
+
+        @Override
+        public Set<Side> keySet() {
+            refresh();
+            return super.keySet();
+        }
+
+        @Override
+        public Collection<CastleRight> values() {
+            refresh();
+            return super.values();
+        }
+
+        @Override
+        public Set<Map.Entry<Side, CastleRight>> entrySet() {
+            refresh();
+            return super.entrySet();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            refresh();
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            refresh();
+            return super.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            refresh();
+            return super.toString();
+        }
+
+        @Override
+        public EnumMap<Side, CastleRight> clone() {
+            refresh();
+            return new EnumMap<>(this);
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib;
+
+/**
+ * The status of a game in a given position, as established by the standard rules of chess. A game is either still
+ * ongoing, or it is over because the side to move is checkmated, or because the position is a draw.
+ *
+ * @see Board#getGameStatus()
+ */
+public enum GameStatus {
+    /**
+     * The game is not over yet.
+     */
+    ONGOING,
+    /**
+     * The king of the side to move is checkmated.
+     */
+    CHECKMATE,
+    /**
+     * The side to move has no legal moves, but its king is not in check.
+     */
+    STALEMATE,
+    /**
+     * The position occurred at least three times.
+     */
+    THREEFOLD_REPETITION,
+    /**
+     * Neither side has enough material left to checkmate the opponent.
+     */
+    INSUFFICIENT_MATERIAL,
+    /**
+     * No capture nor pawn move has been played in the last fifty moves.
+     */
+    FIFTY_MOVE_RULE;
+
+    /**
+     * Checks if the status ends the game.
+     *
+     * @return {@code true} if the game is over
+     */
+    public boolean isGameOver() {
+        return this != ONGOING;
+    }
+
+    /**
+     * Checks if the status ends the game in a draw.
+     *
+     * @return {@code true} if the game is drawn
+     */
+    public boolean isDraw() {
+        return this != ONGOING && this != CHECKMATE;
+    }
+}
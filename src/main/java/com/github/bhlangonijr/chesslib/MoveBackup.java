@@ -32,12 +32,13 @@ import com.github.bhlangonijr.chesslib.move.Move;
  */
 public class MoveBackup implements BoardEvent {
 
-    private final EnumMap<Side, CastleRight> castleRight;
+    private CastleRight whiteCastleRight;
+    private CastleRight blackCastleRight;
     private Side sideToMove;
     private Square enPassantTarget;
     private Square enPassant;
-    private Integer moveCounter;
-    private Integer halfMoveCounter;
+    private int moveCounter;
+    private int halfMoveCounter;
     private Move move;
     private Move rookCastleMove;
     private Piece capturedPiece;
@@ -46,12 +47,17 @@ public class MoveBackup implements BoardEvent {
     private boolean castleMove;
     private boolean enPassantMove;
     private long incrementalHashKey;
+    private long pawnKingKey;
+    private long materialKey;
+    // whether the backup was handed out by the board, in which case the board never reuses it
+    boolean retained;
 
     /**
      * Constructs a new empty move backup.
      */
     public MoveBackup() {
-        castleRight = new EnumMap<>(Side.class);
+        whiteCastleRight = CastleRight.NONE;
+        blackCastleRight = CastleRight.NONE;
     }
 
     /**
@@ -75,16 +81,19 @@ public class MoveBackup implements BoardEvent {
     public void makeBackup(Board board, Move move) {
 
         setIncrementalHashKey(board.getIncrementalHashKey());
+        setPawnKingKey(board.getPawnKingKey());
+        setMaterialKey(board.getMaterialKey());
         setSideToMove(board.getSideToMove());
         setEnPassantTarget(board.getEnPassantTarget());
         setEnPassant(board.getEnPassant());
         setMoveCounter(board.getMoveCounter());
         setHalfMoveCounter(board.getHalfMoveCounter());
         setMove(move);
-        getCastleRight().put(Side.WHITE, board.getCastleRight(Side.WHITE));
-        getCastleRight().put(Side.BLACK, board.getCastleRight(Side.BLACK));
+        setCastleRight(Side.WHITE, board.getCastleRight(Side.WHITE));
+        setCastleRight(Side.BLACK, board.getCastleRight(Side.BLACK));
         setCapturedPiece(board.getPiece(move.getTo()));
         setCapturedSquare(move.getTo());
+        setEnPassantMove(false);
         Piece moving = board.getPiece(move.getFrom());
         setMovingPiece(moving);
         if (board.getContext().isCastleMove(move) && movingPiece == Piece.make(board.getSideToMove(), PieceType.KING)) {
@@ -116,8 +125,8 @@ public class MoveBackup implements BoardEvent {
         board.setMoveCounter(getMoveCounter());
         board.setHalfMoveCounter(getHalfMoveCounter());
         Piece movingPiece = move.getPromotion() == Piece.NONE ? getMovingPiece() : move.getPromotion();
-        board.getCastleRight().put(Side.WHITE, getCastleRight().get(Side.WHITE));
-        board.getCastleRight().put(Side.BLACK, getCastleRight().get(Side.BLACK));
+        board.setCastleRight(Side.WHITE, whiteCastleRight);
+        board.setCastleRight(Side.BLACK, blackCastleRight);
 
         if (move != emptyMove) {
             final boolean isCastle = board.getContext().isCastleMove(getMove());
@@ -136,6 +145,8 @@ public class MoveBackup implements BoardEvent {
             }
         }
         board.setIncrementalHashKey(getIncrementalHashKey());
+        board.setPawnKingKey(getPawnKingKey());
+        board.setMaterialKey(getMaterialKey());
     }
 
     /**
@@ -267,14 +278,42 @@ public class MoveBackup implements BoardEvent {
     }
 
     /**
-     * Returns the castle rights used for restoring the board.
+     * Returns the castle rights used for restoring the board. The map is a snapshot of the castle rights stored in the
+     * backup, hence changes to it are not reflected on the backup.
      *
      * @return the castle rights
      */
     public EnumMap<Side, CastleRight> getCastleRight() {
+        EnumMap<Side, CastleRight> castleRight = new EnumMap<>(Side.class);
+        castleRight.put(Side.WHITE, whiteCastleRight);
+        castleRight.put(Side.BLACK, blackCastleRight);
         return castleRight;
     }
 
+    /**
+     * Returns the castle right of a given side used for restoring the board.
+     *
+     * @param side the side for which the castle right must be returned
+     * @return the castle right of the side
+     */
+    public CastleRight getCastleRight(Side side) {
+        return Side.WHITE == side ? whiteCastleRight : blackCastleRight;
+    }
+
+    /**
+     * Sets the castle right of a given side used for restoring the board.
+     *
+     * @param side        the side for which the castle right must be set
+     * @param castleRight the castle right
+     */
+    public void setCastleRight(Side side, CastleRight castleRight) {
+        if (Side.WHITE == side) {
+            whiteCastleRight = castleRight;
+        } else {
+            blackCastleRight = castleRight;
+        }
+    }
+
     /**
      * Returns the piece captured with the move to revert in the case a board has to be restored.
      *
@@ -393,4 +432,40 @@ public class MoveBackup implements BoardEvent {
     public void setIncrementalHashKey(long incrementalHashKey) {
         this.incrementalHashKey = incrementalHashKey;
     }
+
+    /**
+     * Returns the hash key of the pawns and kings used for restoring the board.
+     *
+     * @return the hash key of the pawns and kings
+     */
+    public long getPawnKingKey() {
+        return pawnKingKey;
+    }
+
+    /**
+     * Sets the hash key of the pawns and kings used for restoring the board.
+     *
+     * @param pawnKingKey the hash key of the pawns and kings
+     */
+    public void setPawnKingKey(long pawnKingKey) {
+        this.pawnKingKey = pawnKingKey;
+    }
+
+    /**
+     * Returns the material signature used for restoring the board.
+     *
+     * @return the material signature
+     */
+    public long getMaterialKey() {
+        return materialKey;
+    }
+
+    /**
+     * Sets the material signature used for restoring the board.
+     *
+     * @param materialKey the material signature
+     */
+    public void setMaterialKey(long materialKey) {
+        this.materialKey = materialKey;
+    }
 }
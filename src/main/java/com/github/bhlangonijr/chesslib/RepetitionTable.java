@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib;
+
+import java.util.Arrays;
+
+/**
+ * A small open-addressing hash map counting how many times each position hash occurs in the history of a board. It
+ * lets the board tell in constant time whether the current position could be a repetition at all, before scanning
+ * the history.
+ * <p>
+ * The map is backed by primitive arrays and uses linear probing, with backward-shift deletion so that keys whose
+ * count drops to zero are removed without leaving tombstones behind.
+ */
+final class RepetitionTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    RepetitionTable() {
+        keys = new long[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+    }
+
+    /*
+     * returns the number of occurrences of the key
+     */
+    int count(long key) {
+        for (int i = slot(key); counts[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    void increment(long key) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int i = slot(key);
+        while (counts[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (counts[i] == 0) {
+            keys[i] = key;
+            size++;
+        }
+        counts[i]++;
+    }
+
+    void decrement(long key) {
+        for (int i = slot(key); counts[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                if (--counts[i] == 0) {
+                    size--;
+                    shiftBackward(i);
+                }
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    /*
+     * fills the hole left by a removed key, moving back the entries of the same cluster that can be placed there
+     */
+    private void shiftBackward(int hole) {
+        for (int i = (hole + 1) & mask; counts[i] != 0; i = (i + 1) & mask) {
+            int home = slot(keys[i]);
+            boolean reachable = hole <= i ? (home > hole && home <= i) : (home > hole || home <= i);
+            if (!reachable) {
+                keys[hole] = keys[i];
+                counts[hole] = counts[i];
+                counts[i] = 0;
+                hole = i;
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldCounts[j] != 0) {
+                int i = slot(oldKeys[j]);
+                while (counts[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
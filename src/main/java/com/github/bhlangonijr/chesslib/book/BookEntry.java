@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.bhlangonijr.chesslib.book;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+
+/**
+ * A move suggested by an opening book for a position, along with its weight, that is the relative likelihood it
+ * should be played compared to the other moves suggested for the same position.
+ */
+public class BookEntry {
+
+    private final Move move;
+    private final int weight;
+    private final int learn;
+
+    /**
+     * Constructs a new book entry.
+     *
+     * @param move   the move suggested by the book
+     * @param weight the weight of the move
+     * @param learn  the learning data associated with the move
+     */
+    public BookEntry(Move move, int weight, int learn) {
+        this.move = move;
+        this.weight = weight;
+        this.learn = learn;
+    }
+
+    /**
+     * Returns the move suggested by the book.
+     *
+     * @return the move
+     */
+    public Move getMove() {
+        return move;
+    }
+
+    /**
+     * Returns the weight of the move. The higher the weight, the more often the move should be played.
+     *
+     * @return the weight of the move
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the learning data associated with the move, as stored in the book. The data is not interpreted.
+     *
+     * @return the learning data
+     */
+    public int getLearn() {
+        return learn;
+    }
+
+    /**
+     * Returns a string representation of this book entry.
+     *
+     * @return a string representation of the book entry
+     */
+    @Override
+    public String toString() {
+        return move + " (" + weight + ")";
+    }
+}
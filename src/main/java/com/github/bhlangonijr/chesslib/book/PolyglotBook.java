@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.bhlangonijr.chesslib.book;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+/**
+ * A reader of opening books in the Polyglot {@code .bin} format.
+ * <p>
+ * A Polyglot book is a sequence of 16-byte entries, each holding the Polyglot hash of a position, a move and its
+ * weight, sorted by hash. The file is memory-mapped rather than loaded onto the heap, and the entries of a position are
+ * located by a binary search on the hash returned by {@link Board#getPolyglotKey()}, hence even very large books can
+ * be probed with a negligible memory footprint.
+ * <p>
+ * A typical usage is as follows:
+ * <pre>{@code
+ * try (PolyglotBook book = new PolyglotBook("book.bin")) {
+ *     Move move = book.getRandomMove(board, new Random());
+ *     if (move != null) {
+ *         board.doMove(move);
+ *     }
+ * }
+ * }</pre>
+ *
+ * @see <a href="http://hgm.nubati.net/book_format.html">The Polyglot opening book format</a>
+ */
+public class PolyglotBook implements AutoCloseable {
+
+    private static final int ENTRY_SIZE = 16;
+    // each mapped segment holds 2^26 entries, that is 1 GB
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final PieceType[] promotionTypes = {PieceType.NONE, PieceType.KNIGHT, PieceType.BISHOP,
+            PieceType.ROOK, PieceType.QUEEN};
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new book reader for the Polyglot book file at the given path.
+     *
+     * @param filePath the path of the book file
+     * @throws IOException in case the file can not be accessed
+     */
+    public PolyglotBook(String filePath) throws IOException {
+        this(Paths.get(filePath));
+    }
+
+    /**
+     * Constructs a new book reader for the Polyglot book file at the given path.
+     *
+     * @param path the path of the book file
+     * @throws IOException in case the file can not be accessed
+     */
+    public PolyglotBook(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size() / ENTRY_SIZE;
+        this.segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            long first = (long) i << SEGMENT_SHIFT;
+            long entries = Math.min(size - first, 1L << SEGMENT_SHIFT);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * ENTRY_SIZE, entries * ENTRY_SIZE);
+        }
+    }
+
+    /**
+     * Returns the number of entries of the book.
+     *
+     * @return the number of entries
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the entries of the book for the position of the given board, in the order they are stored in the book,
+     * usually by descending weight. Moves not legal in the position, due to hash collisions or corrupted data, are
+     * discarded.
+     *
+     * @param board the board of the position
+     * @return the entries for the position, or an empty list if the position is not in the book
+     * @throws IllegalStateException if the book has been closed
+     */
+    public List<BookEntry> getEntries(Board board) {
+        if (closed) {
+            throw new IllegalStateException("The book has been closed");
+        }
+        final long key = board.getPolyglotKey();
+        List<BookEntry> entries = new ArrayList<>();
+        List<Move> legalMoves = null;
+        for (long i = findFirst(key); i < size && getKey(i) == key; i++) {
+            if (legalMoves == null) {
+                legalMoves = board.legalMoves();
+            }
+            Move move = toMove(board, getMoveData(i));
+            if (move != null && legalMoves.contains(move)) {
+                entries.add(new BookEntry(move, getWeight(i), getLearn(i)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the move of the book with the highest weight for the position of the given board.
+     *
+     * @param board the board of the position
+     * @return the move with the highest weight, or {@code null} if the position is not in the book
+     * @throws IllegalStateException if the book has been closed
+     */
+    public Move getBestMove(Board board) {
+        BookEntry best = null;
+        for (BookEntry entry : getEntries(board)) {
+            if (best == null || entry.getWeight() > best.getWeight()) {
+                best = entry;
+            }
+        }
+        return best == null ? null : best.getMove();
+    }
+
+    /**
+     * Returns a random move of the book for the position of the given board, chosen with a probability proportional
+     * to its weight.
+     *
+     * @param board  the board of the position
+     * @param random the source of randomness
+     * @return a random move, or {@code null} if the position is not in the book
+     * @throws IllegalStateException if the book has been closed
+     */
+    public Move getRandomMove(Board board, Random random) {
+        List<BookEntry> entries = getEntries(board);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        long totalWeight = 0;
+        for (BookEntry entry : entries) {
+            totalWeight += entry.getWeight();
+        }
+        if (totalWeight == 0) {
+            return entries.get(random.nextInt(entries.size())).getMove();
+        }
+        long pick = (long) (random.nextDouble() * totalWeight);
+        for (BookEntry entry : entries) {
+            pick -= entry.getWeight();
+            if (pick < 0) {
+                return entry.getMove();
+            }
+        }
+        return entries.get(entries.size() - 1).getMove();
+    }
+
+    /**
+     * Closes the book file. The book can not be probed anymore after it is closed, and any attempt to do so throws an
+     * {@link IllegalStateException}.
+     *
+     * @throws IOException in case of error closing the file
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    /*
+     * returns the index of the first entry whose key is not lower than the given one, comparing the keys as unsigned
+     */
+    private long findFirst(long key) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(getKey(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long getKey(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getLong((int) (index & SEGMENT_MASK) * ENTRY_SIZE);
+    }
+
+    private int getMoveData(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getShort((int) (index & SEGMENT_MASK) * ENTRY_SIZE + 8) &
+                0xFFFF;
+    }
+
+    private int getWeight(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getShort((int) (index & SEGMENT_MASK) * ENTRY_SIZE + 10) &
+                0xFFFF;
+    }
+
+    private int getLearn(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getInt((int) (index & SEGMENT_MASK) * ENTRY_SIZE + 12);
+    }
+
+    /*
+     * the move is packed as destination file and rank, source file and rank (3 bits each) and promotion piece, with
+     * castling moves encoded as the king capturing its own rook
+     */
+    private static Move toMove(Board board, int data) {
+        final Square to = Square.squareAt(((data >>> 3) & 7) * 8 + (data & 7));
+        final Square from = Square.squareAt(((data >>> 9) & 7) * 8 + ((data >>> 6) & 7));
+        final int promotion = (data >>> 12) & 7;
+        final Side side = board.getSideToMove();
+        if (promotion >= promotionTypes.length) {
+            return null;
+        }
+        if (board.getPiece(from) == Piece.make(side, PieceType.KING) &&
+                board.getPiece(to) == Piece.make(side, PieceType.ROOK)) {
+            return to.ordinal() > from.ordinal() ?
+                    board.getContext().getoo(side) : board.getContext().getooo(side);
+        }
+        return new Move(from, to, promotion == 0 ? Piece.NONE : Piece.make(side, promotionTypes[promotion]));
+    }
+}
@@ -26,9 +26,20 @@ import static com.github.bhlangonijr.chesslib.Bitboard.extractLsb;
 
 /**
  * A handy collection of static utility methods for generating moves from a chess position.
+ * <p>
+ * Besides the methods returning lists of {@link Move} objects, the class offers allocation-free counterparts that
+ * write the moves as {@link PackedMove} integers into a caller-owned buffer, and return the number of moves written.
+ * Such buffers are meant to be reused across calls, and should hold at least {@link MoveGenerator#MAX_MOVES} elements.
  */
 public class MoveGenerator {
 
+    /**
+     * The minimum capacity of the buffers used to generate moves as {@link PackedMove} integers.
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final long PROMOTION_RANKS = Bitboard.getRankbb(Rank.RANK_1) | Bitboard.getRankbb(Rank.RANK_8);
+
     private MoveGenerator() {
     }
 
@@ -340,24 +351,32 @@ public class MoveGenerator {
         if (board.isKingAttacked()) {
             return;
         }
-        if (board.getCastleRight(side).equals(CastleRight.KING_AND_QUEEN_SIDE) ||
-                (board.getCastleRight(side).equals(CastleRight.KING_SIDE))) {
-            if ((board.getBitboard() & board.getContext().getooAllSquaresBb(side)) == 0L) {
-                if (!board.isSquareAttackedBy(board.getContext().getooSquares(side), side.flip())) {
-                    moves.add(board.getContext().getoo(side));
-                }
-            }
+        if (canCastleKingSide(board, side)) {
+            moves.add(board.getContext().getoo(side));
         }
-        if (board.getCastleRight(side).equals(CastleRight.KING_AND_QUEEN_SIDE) ||
-                (board.getCastleRight(side).equals(CastleRight.QUEEN_SIDE))) {
-            if ((board.getBitboard() & board.getContext().getoooAllSquaresBb(side)) == 0L) {
-                if (!board.isSquareAttackedBy(board.getContext().getoooSquares(side), side.flip())) {
-                    moves.add(board.getContext().getooo(side));
-                }
-            }
+        if (canCastleQueenSide(board, side)) {
+            moves.add(board.getContext().getooo(side));
         }
     }
 
+    private static boolean canCastleKingSide(Board board, Side side) {
+        CastleRight castleRight = board.getCastleRight(side);
+        return (castleRight == CastleRight.KING_AND_QUEEN_SIDE || castleRight == CastleRight.KING_SIDE) &&
+                (board.getBitboard() & board.getContext().getooAllSquaresBb(side)) == 0L &&
+                !isAnySquareAttacked(board, board.getContext().getooSquaresBb(side), side.flip());
+    }
+
+    private static boolean canCastleQueenSide(Board board, Side side) {
+        CastleRight castleRight = board.getCastleRight(side);
+        return (castleRight == CastleRight.KING_AND_QUEEN_SIDE || castleRight == CastleRight.QUEEN_SIDE) &&
+                (board.getBitboard() & board.getContext().getoooAllSquaresBb(side)) == 0L &&
+                !isAnySquareAttacked(board, board.getContext().getoooSquaresBb(side), side.flip());
+    }
+
+    private static boolean isAnySquareAttacked(Board board, long squares, Side side) {
+        return (board.getAttackedSquares(side) & squares) != 0L;
+    }
+
     /**
      * Returns the list of all possible pseudo-legal moves for the given position.
      * <p>
@@ -419,4 +438,720 @@ public class MoveGenerator {
         }
     }
 
+    /**
+     * Returns the list of all the legal captures for the position, en passant captures included.
+     *
+     * @param board the board from which to generate the legal captures
+     * @return the list of legal captures available in the position
+     * @see MoveGenerator#generateLegalCaptures(Board, int[])
+     */
+    public static List<Move> generateLegalCaptures(Board board) {
+        int[] moves = new int[MAX_MOVES];
+        return toMoveList(moves, generateLegalCaptures(board, moves));
+    }
+
+    /**
+     * Returns the list of all the legal moves evading a check to the king of the side to move. The list is empty when
+     * the king is not in check.
+     *
+     * @param board the board from which to generate the check evasions
+     * @return the list of check evasions available in the position
+     * @see MoveGenerator#generateEvasions(Board, int[])
+     */
+    public static List<Move> generateEvasions(Board board) {
+        int[] moves = new int[MAX_MOVES];
+        return toMoveList(moves, generateEvasions(board, moves));
+    }
+
+    /**
+     * Returns the list of all the legal moves giving check to the enemy king.
+     *
+     * @param board the board from which to generate the checking moves
+     * @return the list of checking moves available in the position
+     * @see MoveGenerator#generateChecks(Board, int[])
+     */
+    public static List<Move> generateChecks(Board board) {
+        int[] moves = new int[MAX_MOVES];
+        return toMoveList(moves, generateChecks(board, moves));
+    }
+
+    private static List<Move> toMoveList(int[] moves, int n) {
+        List<Move> list = new LinkedList<>();
+        for (int i = 0; i < n; i++) {
+            list.add(PackedMove.toMove(moves[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Generates all possible pseudo-legal moves for the given position, and writes them as {@link PackedMove}
+     * integers into the buffer passed as an argument, starting from index 0. No object is allocated in the process.
+     * <p>
+     * A move is considered pseudo-legal when it is legal according to the standard rules of chess piece movements, but
+     * the resulting position might not be legal because of other rules (e.g. checks to the king).
+     *
+     * @param board the board from which to generate the pseudo-legal moves
+     * @param moves the buffer in which to write the generated moves, of at least {@link MoveGenerator#MAX_MOVES}
+     *              elements
+     * @return the number of moves written into the buffer
+     */
+    public static int generatePseudoLegalMoves(Board board, int[] moves) {
+        Side side = board.getSideToMove();
+        long mask = ~board.getBitboard(side);
+        int n = generatePawnCaptures(board, moves, 0);
+        n = generatePawnMoves(board, moves, n);
+        n = generatePieceMoves(board, moves, n, PieceType.KNIGHT, mask, 0L, 0, ~0L);
+        n = generatePieceMoves(board, moves, n, PieceType.BISHOP, mask, 0L, 0, ~0L);
+        n = generatePieceMoves(board, moves, n, PieceType.ROOK, mask, 0L, 0, ~0L);
+        n = generatePieceMoves(board, moves, n, PieceType.QUEEN, mask, 0L, 0, ~0L);
+        n = generatePieceMoves(board, moves, n, PieceType.KING, mask, 0L, 0, ~0L);
+        if (!board.isKingAttacked()) {
+            n = generateCastleMoves(board, moves, n, ~0L);
+        }
+        return n;
+    }
+
+    /**
+     * Generates all possible legal moves for the position according to the standard rules of chess, and writes them as
+     * {@link PackedMove} integers into the buffer passed as an argument, starting from index 0. No object is allocated
+     * in the process, hence the same buffer can be reused to generate the moves of many positions.
+     * <p>
+     * Differently from {@link MoveGenerator#generateLegalMoves(Board)}, which filters the pseudo-legal moves validating
+     * each of them with {@link Board#isMoveLegal(Move, boolean)}, only legal moves are emitted in the first place. The
+     * pieces giving check and the pinned pieces are computed once for the position, and used to restrict the target
+     * squares of each piece: when the king is in double check only king moves are generated, when in single check the
+     * other pieces can only capture the checker or block its ray, and pinned pieces can only move along the line of the
+     * pin. En passant captures, which remove two pieces from the same rank at once, are verified individually.
+     * <p>
+     * A packed move can be converted back to a {@link Move} using {@link PackedMove#toMove(int)}.
+     *
+     * @param board the board from which to generate the legal moves
+     * @param moves the buffer in which to write the generated moves, of at least {@link MoveGenerator#MAX_MOVES}
+     *              elements
+     * @return the number of moves written into the buffer
+     */
+    public static int generateLegalMoves(Board board, int[] moves) {
+        return generateLegalMoves(board, moves, 0, ~0L, false);
+    }
+
+    /**
+     * Checks whether the side to move has at least one legal move in the given position. The generation of the legal
+     * moves stops as soon as any of the piece types yields a move, which makes the check much cheaper than generating
+     * all the legal moves, unless the side to move is actually checkmated or stalemated.
+     *
+     * @param board the board of the position to check
+     * @param moves the buffer used to generate the moves, of at least {@link MoveGenerator#MAX_MOVES} elements
+     * @return {@code true} if the side to move has at least one legal move
+     */
+    public static boolean hasLegalMove(Board board, int[] moves) {
+        return generateLegalMoves(board, moves, 0, ~0L, true) > 0;
+    }
+
+    /**
+     * Counts the legal moves of the position according to the standard rules of chess, without generating them.
+     * <p>
+     * The same restrictions applied by {@link MoveGenerator#generateLegalMoves(Board, int[])} to the target squares of
+     * each piece, due to checks and pins, are used here, but the resulting target bitboards are just counted. The pawns
+     * not pinned are handled all at once by shifting their bitboard, each promotion counting for the four possible
+     * pieces, whereas the king moves and the en passant captures are verified individually.
+     *
+     * @param board the board of the position
+     * @return the number of legal moves available in the position
+     */
+    public static int countLegalMoves(Board board) {
+        final Side side = board.getSideToMove();
+        final Side other = side.flip();
+        final long king = board.getBitboard(Piece.make(side, PieceType.KING));
+        final long us = board.getBitboard(side);
+        final long them = board.getBitboard(other);
+        final long occupied = us | them;
+        final int kingIndex = bitScanForward(king);
+        final Square kingSq = Square.squareAt(kingIndex);
+        final long checkers = king == 0L ? 0L : board.getCheckers();
+
+        int count = 0;
+        long kingTargets = king == 0L ? 0L : Bitboard.getKingAttacks(kingSq, ~us);
+        while (kingTargets != 0L) {
+            int targetIndex = bitScanForward(kingTargets);
+            kingTargets = extractLsb(kingTargets);
+            if (board.squareAttackedBy(Square.squareAt(targetIndex), other, occupied ^ king) == 0L) {
+                count++;
+            }
+        }
+        if (checkers != 0L && extractLsb(checkers) != 0L) {
+            return count;
+        }
+
+        final long checkMask = checkers == 0L ? ~0L :
+                checkers | Bitboard.squaresBetween(kingIndex, bitScanForward(checkers));
+        final long pinned = board.getPinnedPieces();
+        final long mask = ~us & checkMask;
+
+        final long pawns = board.getBitboard(Piece.make(side, PieceType.PAWN));
+        final long free = pawns & ~pinned;
+        final long empty = ~occupied;
+        long pushes;
+        long doublePushes;
+        long leftCaptures;
+        long rightCaptures;
+        if (Side.WHITE.equals(side)) {
+            pushes = (free << 8) & empty;
+            doublePushes = ((pushes & Bitboard.getRankbb(Rank.RANK_3)) << 8) & empty;
+            leftCaptures = ((free & ~Bitboard.getFilebb(File.FILE_A)) << 7) & them;
+            rightCaptures = ((free & ~Bitboard.getFilebb(File.FILE_H)) << 9) & them;
+        } else {
+            pushes = (free >>> 8) & empty;
+            doublePushes = ((pushes & Bitboard.getRankbb(Rank.RANK_6)) >>> 8) & empty;
+            leftCaptures = ((free & ~Bitboard.getFilebb(File.FILE_A)) >>> 9) & them;
+            rightCaptures = ((free & ~Bitboard.getFilebb(File.FILE_H)) >>> 7) & them;
+        }
+        count += countPawnTargets(pushes & mask) + Long.bitCount(doublePushes & mask) +
+                countPawnTargets(leftCaptures & mask) + countPawnTargets(rightCaptures & mask);
+        long pieces = pawns & pinned;
+        while (pieces != 0L) {
+            int sourceIndex = bitScanForward(pieces);
+            pieces = extractLsb(pieces);
+            Square sqSource = Square.squareAt(sourceIndex);
+            long targets = (Bitboard.getPawnAttacks(side, sqSource) & them) |
+                    Bitboard.getPawnMoves(side, sqSource, occupied);
+            count += countPawnTargets(targets & mask & Bitboard.lineThrough(kingIndex, sourceIndex));
+        }
+        if (board.getEnPassantTarget() != Square.NONE) {
+            pieces = Bitboard.getPawnAttacks(other, board.getEnPassant()) & pawns;
+            while (pieces != 0L) {
+                int sourceIndex = bitScanForward(pieces);
+                pieces = extractLsb(pieces);
+                if (isLegalEnPassant(board, sourceIndex, kingSq)) {
+                    count++;
+                }
+            }
+        }
+
+        // pinned knights can never move
+        pieces = board.getBitboard(Piece.make(side, PieceType.KNIGHT)) & ~pinned;
+        while (pieces != 0L) {
+            int sourceIndex = bitScanForward(pieces);
+            pieces = extractLsb(pieces);
+            count += Long.bitCount(Bitboard.getKnightAttacks(Square.squareAt(sourceIndex), mask));
+        }
+        count += countPieceMoves(board, PieceType.BISHOP, mask, pinned, kingIndex);
+        count += countPieceMoves(board, PieceType.ROOK, mask, pinned, kingIndex);
+        count += countPieceMoves(board, PieceType.QUEEN, mask, pinned, kingIndex);
+        if (checkers == 0L) {
+            if (canCastleKingSide(board, side)) {
+                count++;
+            }
+            if (canCastleQueenSide(board, side)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Generates all the legal captures of the position, en passant captures included, and writes them as
+     * {@link PackedMove} integers into the buffer passed as an argument, starting from index 0. Promotions that do not
+     * capture any piece are not included.
+     * <p>
+     * The captures are emitted directly by restricting the target squares of each piece to the enemy pieces, hence no
+     * quiet move is ever generated.
+     *
+     * @param board the board from which to generate the legal captures
+     * @param moves the buffer in which to write the generated moves, of at least {@link MoveGenerator#MAX_MOVES}
+     *              elements
+     * @return the number of moves written into the buffer
+     */
+    public static int generateLegalCaptures(Board board, int[] moves) {
+        return generateLegalMoves(board, moves, 0, board.getBitboard(board.getSideToMove().flip()), false);
+    }
+
+    /**
+     * Generates all the legal moves evading a check to the king of the side to move, and writes them as
+     * {@link PackedMove} integers into the buffer passed as an argument, starting from index 0. When the king is not in
+     * check no move is generated.
+     * <p>
+     * The king can step to any square not attacked by the enemy, while in single check the other pieces are restricted
+     * to the squares capturing the checker or blocking its ray, and in double check they are not considered at all.
+     *
+     * @param board the board from which to generate the check evasions
+     * @param moves the buffer in which to write the generated moves, of at least {@link MoveGenerator#MAX_MOVES}
+     *              elements
+     * @return the number of moves written into the buffer
+     */
+    public static int generateEvasions(Board board, int[] moves) {
+        if (board.getCheckers() == 0L) {
+            return 0;
+        }
+        return generateLegalMoves(board, moves, 0, ~0L, false);
+    }
+
+    /**
+     * Generates all the legal moves giving check to the enemy king, and writes them as {@link PackedMove} integers into
+     * the buffer passed as an argument, starting from index 0. Both captures and quiet moves are included.
+     * <p>
+     * The squares from which each piece type would attack the enemy king are computed once for the position, and used
+     * as target squares for the moves of the pieces of that type. The pieces shielding the enemy king from one of the
+     * sliders of the side to move, the candidates for a discovered check, can additionally move to any square off the
+     * line of the slider. Promotions, en passant captures and castling moves, which are rare, are verified
+     * individually.
+     *
+     * @param board the board from which to generate the checking moves
+     * @param moves the buffer in which to write the generated moves, of at least {@link MoveGenerator#MAX_MOVES}
+     *              elements
+     * @return the number of moves written into the buffer
+     */
+    public static int generateChecks(Board board, int[] moves) {
+        final Side side = board.getSideToMove();
+        final Side other = side.flip();
+        final long enemyKing = board.getBitboard(Piece.make(other, PieceType.KING));
+        if (enemyKing == 0L) {
+            return 0;
+        }
+        final long king = board.getBitboard(Piece.make(side, PieceType.KING));
+        final long us = board.getBitboard(side);
+        final long occupied = board.getBitboard();
+        final int kingIndex = bitScanForward(king);
+        final long checkers = king == 0L ? 0L : board.getCheckers();
+        final boolean doubleCheck = checkers != 0L && extractLsb(checkers) != 0L;
+        final long checkMask = checkers == 0L || doubleCheck ? ~0L :
+                checkers | Bitboard.squaresBetween(kingIndex, bitScanForward(checkers));
+        final long pinned = king == 0L ? 0L : board.getPinnedPieces();
+        final long mask = ~us & checkMask;
+
+        final int enemyKingIndex = bitScanForward(enemyKing);
+        final Square enemyKingSq = Square.squareAt(enemyKingIndex);
+        final long pawnChecks = Bitboard.getPawnAttacks(other, enemyKingSq) & ~PROMOTION_RANKS;
+        final long knightChecks = Bitboard.getKnightAttacks(enemyKingSq, ~0L);
+        final long bishopChecks = Bitboard.getBishopAttacks(occupied, enemyKingSq);
+        final long rookChecks = Bitboard.getRookAttacks(occupied, enemyKingSq);
+        final long candidates = discoveredCheckCandidates(board, enemyKingIndex);
+
+        int n = 0;
+        if (!doubleCheck) {
+            n = generateLegalPawnMoves(board, moves, n, mask & pawnChecks, pinned, kingIndex, ~candidates);
+            n = generatePieceMoves(board, moves, n, PieceType.KNIGHT, mask & knightChecks, pinned, kingIndex,
+                    ~candidates);
+            n = generatePieceMoves(board, moves, n, PieceType.BISHOP, mask & bishopChecks, pinned, kingIndex,
+                    ~candidates);
+            n = generatePieceMoves(board, moves, n, PieceType.ROOK, mask & rookChecks, pinned, kingIndex,
+                    ~candidates);
+            n = generatePieceMoves(board, moves, n, PieceType.QUEEN, mask & (bishopChecks | rookChecks), pinned,
+                    kingIndex, ~candidates);
+        }
+        // moving a candidate off the line of the slider behind it uncovers a check
+        long pieces = candidates;
+        while (pieces != 0L) {
+            int sourceIndex = bitScanForward(pieces);
+            pieces = extractLsb(pieces);
+            long source = 1L << sourceIndex;
+            long offLine = ~Bitboard.lineThrough(enemyKingIndex, sourceIndex);
+            PieceType type = board.getPiece(Square.squareAt(sourceIndex)).getPieceType();
+            if (PieceType.KING.equals(type)) {
+                n = generateLegalKingMoves(board, moves, n, offLine);
+            } else if (doubleCheck) {
+                continue;
+            } else if (PieceType.PAWN.equals(type)) {
+                n = generateLegalPawnMoves(board, moves, n, mask & (offLine | pawnChecks) & ~PROMOTION_RANKS, pinned,
+                        kingIndex, source);
+            } else {
+                long direct = PieceType.KNIGHT.equals(type) ? knightChecks :
+                        PieceType.BISHOP.equals(type) ? bishopChecks :
+                                PieceType.ROOK.equals(type) ? rookChecks : bishopChecks | rookChecks;
+                n = generatePieceMoves(board, moves, n, type, mask & (offLine | direct), pinned, kingIndex, source);
+            }
+        }
+        if (doubleCheck) {
+            return n;
+        }
+
+        // promotions, en passant captures and castling moves are verified one by one
+        final int start = n;
+        n = generateLegalPawnMoves(board, moves, n, mask & PROMOTION_RANKS, pinned, kingIndex, ~0L);
+        n = generateLegalEnPassant(board, moves, n, ~0L, Square.squareAt(kingIndex));
+        if (checkers == 0L) {
+            n = generateCastleMoves(board, moves, n, ~0L);
+        }
+        int end = start;
+        for (int i = start; i < n; i++) {
+            if (givesCheck(board, moves[i], enemyKingSq)) {
+                moves[end++] = moves[i];
+            }
+        }
+        return end;
+    }
+
+    /*
+     * generates the legal moves landing on the target squares, as well as the en passant captures of a pawn placed
+     * on the target squares
+     */
+    static int generateLegalMoves(Board board, int[] moves, long targets) {
+        return generateLegalMoves(board, moves, 0, targets, false);
+    }
+
+    /*
+     * returns the legal move matching the packed move passed in input, flags included, or PackedMove.NONE if the move
+     * is not legal in the position. The buffer is used as scratch space
+     */
+    static int findLegalMove(Board board, int move, int[] buffer) {
+        if (move == PackedMove.NONE) {
+            return PackedMove.NONE;
+        }
+        final int toIndex = PackedMove.getToIndex(move);
+        long targets = 1L << toIndex;
+        if (board.getEnPassantTarget() != Square.NONE && board.getEnPassant().ordinal() == toIndex) {
+            targets |= board.getEnPassantTarget().getBitboard();
+        }
+        final int n = generateLegalMoves(board, buffer, 0, targets, false);
+        final int key = PackedMove.withoutFlags(move);
+        for (int i = 0; i < n; i++) {
+            if (PackedMove.withoutFlags(buffer[i]) == key) {
+                return buffer[i];
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /*
+     * generates the legal moves landing on the target squares, as well as the en passant captures of a pawn placed
+     * on the target squares, possibly stopping as soon as any move is found
+     */
+    private static int generateLegalMoves(Board board, int[] moves, int n, long targets, boolean stopAtFirst) {
+        final Side side = board.getSideToMove();
+        final long king = board.getBitboard(Piece.make(side, PieceType.KING));
+        final long us = board.getBitboard(side);
+        final int kingIndex = bitScanForward(king);
+        final Square kingSq = Square.squareAt(kingIndex);
+        final long checkers = king == 0L ? 0L : board.getCheckers();
+
+        n = generateLegalKingMoves(board, moves, n, targets);
+        if ((checkers != 0L && extractLsb(checkers) != 0L) || (stopAtFirst && n > 0)) {
+            return n;
+        }
+
+        final long checkMask = checkers == 0L ? ~0L :
+                checkers | Bitboard.squaresBetween(kingIndex, bitScanForward(checkers));
+        final long pinned = board.getPinnedPieces();
+        final long mask = ~us & targets & checkMask;
+
+        n = generateLegalPawnMoves(board, moves, n, mask, pinned, kingIndex, ~0L);
+        n = generateLegalEnPassant(board, moves, n, targets, kingSq);
+        if (stopAtFirst && n > 0) {
+            return n;
+        }
+        n = generatePieceMoves(board, moves, n, PieceType.KNIGHT, mask, pinned, kingIndex, ~0L);
+        n = generatePieceMoves(board, moves, n, PieceType.BISHOP, mask, pinned, kingIndex, ~0L);
+        n = generatePieceMoves(board, moves, n, PieceType.ROOK, mask, pinned, kingIndex, ~0L);
+        n = generatePieceMoves(board, moves, n, PieceType.QUEEN, mask, pinned, kingIndex, ~0L);
+        if (stopAtFirst && n > 0) {
+            return n;
+        }
+        if (checkers == 0L) {
+            n = generateCastleMoves(board, moves, n, targets);
+        }
+        return n;
+    }
+
+    /*
+     * returns the pieces of the side to move standing alone between one of its sliders and the enemy king
+     */
+    private static long discoveredCheckCandidates(Board board, int enemyKingIndex) {
+        final Side side = board.getSideToMove();
+        final Square enemyKingSq = Square.squareAt(enemyKingIndex);
+        final long occupied = board.getBitboard();
+        final long queens = board.getBitboard(Piece.make(side, PieceType.QUEEN));
+        long snipers = (Bitboard.getBishopAttacks(0L, enemyKingSq) &
+                (board.getBitboard(Piece.make(side, PieceType.BISHOP)) | queens)) |
+                (Bitboard.getRookAttacks(0L, enemyKingSq) &
+                        (board.getBitboard(Piece.make(side, PieceType.ROOK)) | queens));
+        long candidates = 0L;
+        while (snipers != 0L) {
+            int sniperIndex = bitScanForward(snipers);
+            snipers = extractLsb(snipers);
+            long between = Bitboard.squaresBetween(enemyKingIndex, sniperIndex) & occupied;
+            if (between != 0L && extractLsb(between) == 0L) {
+                candidates |= between;
+            }
+        }
+        return candidates & board.getBitboard(side);
+    }
+
+    /*
+     * verifies whether the move attacks the enemy king, by computing the pieces of the side to move and the occupancy
+     * of the board after the move
+     */
+    private static boolean givesCheck(Board board, int move, Square enemyKingSq) {
+        final Side side = board.getSideToMove();
+        final int fromIndex = PackedMove.getFromIndex(move);
+        final int toIndex = PackedMove.getToIndex(move);
+        final long from = 1L << fromIndex;
+        final long to = 1L << toIndex;
+        final Piece moving = board.getPiece(Square.squareAt(fromIndex));
+        final PieceType placed = PackedMove.isPromotion(move) ?
+                PackedMove.getPromotion(move).getPieceType() : moving.getPieceType();
+        long occupied = (board.getBitboard() ^ from) | to;
+        long pawns = board.getBitboard(Piece.make(side, PieceType.PAWN)) & ~from;
+        long knights = board.getBitboard(Piece.make(side, PieceType.KNIGHT)) & ~from;
+        long bishops = (board.getBitboard(Piece.make(side, PieceType.BISHOP)) |
+                board.getBitboard(Piece.make(side, PieceType.QUEEN))) & ~from;
+        long rooks = (board.getBitboard(Piece.make(side, PieceType.ROOK)) |
+                board.getBitboard(Piece.make(side, PieceType.QUEEN))) & ~from;
+        if (PackedMove.isEnPassant(move)) {
+            occupied ^= board.getEnPassantTarget().getBitboard();
+        } else if (PackedMove.isCastle(move)) {
+            CastleRight castleRight = toIndex > fromIndex ? CastleRight.KING_SIDE : CastleRight.QUEEN_SIDE;
+            Move rookMove = board.getContext().getRookCastleMove(side, castleRight);
+            long rookTo = rookMove.getTo().getBitboard();
+            occupied = (occupied & ~rookMove.getFrom().getBitboard()) | rookTo;
+            rooks = (rooks & ~rookMove.getFrom().getBitboard()) | rookTo;
+        }
+        switch (placed) {
+            case PAWN:
+                pawns |= to;
+                break;
+            case KNIGHT:
+                knights |= to;
+                break;
+            case BISHOP:
+                bishops |= to;
+                break;
+            case ROOK:
+                rooks |= to;
+                break;
+            case QUEEN:
+                bishops |= to;
+                rooks |= to;
+                break;
+            default:
+                break;
+        }
+        return ((Bitboard.getPawnAttacks(side.flip(), enemyKingSq) & pawns) |
+                Bitboard.getKnightAttacks(enemyKingSq, knights) |
+                (Bitboard.getBishopAttacks(occupied, enemyKingSq) & bishops) |
+                (Bitboard.getRookAttacks(occupied, enemyKingSq) & rooks)) != 0L;
+    }
+
+    private static int generateLegalKingMoves(Board board, int[] moves, int n, long targets) {
+        final Side side = board.getSideToMove();
+        final Side other = side.flip();
+        final long king = board.getBitboard(Piece.make(side, PieceType.KING));
+        if (king == 0L) {
+            return n;
+        }
+        final long them = board.getBitboard(other);
+        final long occupied = board.getBitboard();
+        final int kingIndex = bitScanForward(king);
+        long kingTargets = Bitboard.getKingAttacks(Square.squareAt(kingIndex), ~board.getBitboard(side) & targets);
+        while (kingTargets != 0L) {
+            int targetIndex = bitScanForward(kingTargets);
+            kingTargets = extractLsb(kingTargets);
+            if (board.squareAttackedBy(Square.squareAt(targetIndex), other, occupied ^ king) == 0L) {
+                int flags = (them & (1L << targetIndex)) != 0L ? PackedMove.CAPTURE : 0;
+                moves[n++] = PackedMove.encode(kingIndex, targetIndex, Piece.NONE, flags);
+            }
+        }
+        return n;
+    }
+
+    private static int generateLegalPawnMoves(Board board, int[] moves, int n, long mask, long pinned,
+                                              int kingIndex, long sources) {
+        final Side side = board.getSideToMove();
+        final long occupied = board.getBitboard();
+        final long enemies = board.getBitboard(side.flip());
+        long pieces = board.getBitboard(Piece.make(side, PieceType.PAWN)) & sources;
+        while (pieces != 0L) {
+            int sourceIndex = bitScanForward(pieces);
+            pieces = extractLsb(pieces);
+            Square sqSource = Square.squareAt(sourceIndex);
+            long allowed = (pinned & (1L << sourceIndex)) == 0L ? mask :
+                    mask & Bitboard.lineThrough(kingIndex, sourceIndex);
+            long attacks = ((Bitboard.getPawnAttacks(side, sqSource) & enemies) |
+                    Bitboard.getPawnMoves(side, sqSource, occupied)) & allowed;
+            while (attacks != 0L) {
+                int targetIndex = bitScanForward(attacks);
+                attacks = extractLsb(attacks);
+                int flags = (enemies & (1L << targetIndex)) != 0L ? PackedMove.CAPTURE :
+                        Math.abs(targetIndex - sourceIndex) == 16 ? PackedMove.DOUBLE_PUSH : 0;
+                n = addPromotions(moves, n, side, sourceIndex, targetIndex, flags);
+            }
+        }
+        return n;
+    }
+
+    private static int generateLegalEnPassant(Board board, int[] moves, int n, long targets, Square kingSq) {
+        final Square epTarget = board.getEnPassantTarget();
+        if (epTarget == Square.NONE || (targets & epTarget.getBitboard()) == 0L) {
+            return n;
+        }
+        final Side side = board.getSideToMove();
+        final Square epSquare = board.getEnPassant();
+        long pieces = Bitboard.getPawnAttacks(side.flip(), epSquare) &
+                board.getBitboard(Piece.make(side, PieceType.PAWN));
+        while (pieces != 0L) {
+            int sourceIndex = bitScanForward(pieces);
+            pieces = extractLsb(pieces);
+            if (isLegalEnPassant(board, sourceIndex, kingSq)) {
+                moves[n++] = PackedMove.encode(sourceIndex, epSquare.ordinal(), Piece.NONE,
+                        PackedMove.CAPTURE | PackedMove.EN_PASSANT);
+            }
+        }
+        return n;
+    }
+
+    private static boolean isLegalEnPassant(Board board, int sourceIndex, Square kingSq) {
+        // both the capturing and the captured pawns leave the rank, so the king safety is checked from scratch
+        long occupied = (board.getBitboard() ^ (1L << sourceIndex) ^ board.getEnPassantTarget().getBitboard()) |
+                board.getEnPassant().getBitboard();
+        return kingSq == Square.NONE ||
+                board.squareAttackedBy(kingSq, board.getSideToMove().flip(), occupied) == 0L;
+    }
+
+    /*
+     * counts the pawn moves landing on the target squares, promotions counting for the four possible pieces
+     */
+    private static int countPawnTargets(long targets) {
+        return Long.bitCount(targets & ~PROMOTION_RANKS) + (Long.bitCount(targets & PROMOTION_RANKS) << 2);
+    }
+
+    private static int countPieceMoves(Board board, PieceType type, long mask, long pinned, int kingIndex) {
+        final long occupied = board.getBitboard();
+        long pieces = board.getBitboard(Piece.make(board.getSideToMove(), type));
+        int count = 0;
+        while (pieces != 0L) {
+            int sourceIndex = bitScanForward(pieces);
+            pieces = extractLsb(pieces);
+            Square sqSource = Square.squareAt(sourceIndex);
+            long attacks;
+            switch (type) {
+                case BISHOP:
+                    attacks = Bitboard.getBishopAttacks(occupied, sqSource) & mask;
+                    break;
+                case ROOK:
+                    attacks = Bitboard.getRookAttacks(occupied, sqSource) & mask;
+                    break;
+                default:
+                    attacks = Bitboard.getQueenAttacks(occupied, sqSource) & mask;
+                    break;
+            }
+            if ((pinned & (1L << sourceIndex)) != 0L) {
+                attacks &= Bitboard.lineThrough(kingIndex, sourceIndex);
+            }
+            count += Long.bitCount(attacks);
+        }
+        return count;
+    }
+
+    private static int generatePawnCaptures(Board board, int[] moves, int n) {
+        Side side = board.getSideToMove();
+        long enemies = board.getBitboard(side.flip());
+        long pieces = board.getBitboard(Piece.make(side, PieceType.PAWN));
+        while (pieces != 0L) {
+            int sourceIndex = bitScanForward(pieces);
+            pieces = extractLsb(pieces);
+            long attacks = Bitboard.getPawnCaptures(side, Square.squareAt(sourceIndex),
+                    board.getBitboard(), board.getEnPassantTarget()) & ~board.getBitboard(side);
+            while (attacks != 0L) {
+                int targetIndex = bitScanForward(attacks);
+                attacks = extractLsb(attacks);
+                int flags = (enemies & (1L << targetIndex)) != 0L ?
+                        PackedMove.CAPTURE : PackedMove.CAPTURE | PackedMove.EN_PASSANT;
+                n = addPromotions(moves, n, side, sourceIndex, targetIndex, flags);
+            }
+        }
+        return n;
+    }
+
+    private static int generatePawnMoves(Board board, int[] moves, int n) {
+        Side side = board.getSideToMove();
+        long pieces = board.getBitboard(Piece.make(side, PieceType.PAWN));
+        while (pieces != 0L) {
+            int sourceIndex = bitScanForward(pieces);
+            pieces = extractLsb(pieces);
+            long attacks = Bitboard.getPawnMoves(side, Square.squareAt(sourceIndex), board.getBitboard());
+            while (attacks != 0L) {
+                int targetIndex = bitScanForward(attacks);
+                attacks = extractLsb(attacks);
+                int flags = Math.abs(targetIndex - sourceIndex) == 16 ? PackedMove.DOUBLE_PUSH : 0;
+                n = addPromotions(moves, n, side, sourceIndex, targetIndex, flags);
+            }
+        }
+        return n;
+    }
+
+    private static int addPromotions(int[] moves, int n, Side side, int sourceIndex, int targetIndex, int flags) {
+        if (Side.WHITE.equals(side) && targetIndex >= 56) {
+            moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.WHITE_QUEEN, flags);
+            moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.WHITE_ROOK, flags);
+            moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.WHITE_BISHOP, flags);
+            moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.WHITE_KNIGHT, flags);
+        } else if (Side.BLACK.equals(side) && targetIndex < 8) {
+            moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.BLACK_QUEEN, flags);
+            moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.BLACK_ROOK, flags);
+            moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.BLACK_BISHOP, flags);
+            moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.BLACK_KNIGHT, flags);
+        } else {
+            moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.NONE, flags);
+        }
+        return n;
+    }
+
+    private static int generatePieceMoves(Board board, int[] moves, int n, PieceType type, long mask, long pinned,
+                                          int kingIndex, long sources) {
+        Side side = board.getSideToMove();
+        long occupied = board.getBitboard();
+        long enemies = board.getBitboard(side.flip());
+        long pieces = board.getBitboard(Piece.make(side, type)) & sources;
+        while (pieces != 0L) {
+            int sourceIndex = bitScanForward(pieces);
+            pieces = extractLsb(pieces);
+            Square sqSource = Square.squareAt(sourceIndex);
+            long attacks;
+            switch (type) {
+                case KNIGHT:
+                    attacks = Bitboard.getKnightAttacks(sqSource, mask);
+                    break;
+                case BISHOP:
+                    attacks = Bitboard.getBishopAttacks(occupied, sqSource) & mask;
+                    break;
+                case ROOK:
+                    attacks = Bitboard.getRookAttacks(occupied, sqSource) & mask;
+                    break;
+                case QUEEN:
+                    attacks = Bitboard.getQueenAttacks(occupied, sqSource) & mask;
+                    break;
+                default:
+                    attacks = Bitboard.getKingAttacks(sqSource, mask);
+                    break;
+            }
+            if ((pinned & (1L << sourceIndex)) != 0L) {
+                attacks &= Bitboard.lineThrough(kingIndex, sourceIndex);
+            }
+            while (attacks != 0L) {
+                int targetIndex = bitScanForward(attacks);
+                attacks = extractLsb(attacks);
+                int flags = (enemies & (1L << targetIndex)) != 0L ? PackedMove.CAPTURE : 0;
+                moves[n++] = PackedMove.encode(sourceIndex, targetIndex, Piece.NONE, flags);
+            }
+        }
+        return n;
+    }
+
+    private static int generateCastleMoves(Board board, int[] moves, int n, long targets) {
+        Side side = board.getSideToMove();
+        if (canCastleKingSide(board, side)) {
+            Move oo = board.getContext().getoo(side);
+            if ((targets & oo.getTo().getBitboard()) != 0L) {
+                moves[n++] = PackedMove.encode(oo.getFrom().ordinal(), oo.getTo().ordinal(), Piece.NONE,
+                        PackedMove.CASTLE);
+            }
+        }
+        if (canCastleQueenSide(board, side)) {
+            Move ooo = board.getContext().getooo(side);
+            if ((targets & ooo.getTo().getBitboard()) != 0L) {
+                moves[n++] = PackedMove.encode(ooo.getFrom().ordinal(), ooo.getTo().ordinal(), Piece.NONE,
+                        PackedMove.CASTLE);
+            }
+        }
+        return n;
+    }
+
 }
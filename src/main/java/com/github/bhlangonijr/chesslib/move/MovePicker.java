@@ -0,0 +1,287 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.move;
+
+import com.github.bhlangonijr.chesslib.Bitboard;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Rank;
+
+/**
+ * A staged generator of the legal moves of a position, meant to feed the search routines of a chess engine. The moves
+ * are returned one at a time as {@link PackedMove} integers, in the order most likely to produce an early cutoff:
+ * <ol>
+ *     <li>the hash move, that is the best move found for the position by a previous search, if legal;</li>
+ *     <li>the winning and equal captures, ordered by most valuable victim and least valuable attacker (MVV-LVA);</li>
+ *     <li>the promotions not capturing any piece;</li>
+ *     <li>the killer moves, that is the quiet moves that caused a cutoff in sibling positions, if legal;</li>
+ *     <li>the remaining quiet moves;</li>
+ *     <li>the losing captures, that is the captures losing material according to the static exchange evaluation
+ *     ({@link Board#see(int)}).</li>
+ * </ol>
+ * Each group of moves is generated only when the previous ones are exhausted, so that no effort is spent on the
+ * quiet moves when a capture produces a cutoff. The same picker, and its internal buffers, can be reused for any
+ * number of positions, without allocating any object.
+ * <p>
+ * A typical usage is as follows:
+ * <pre>{@code
+ * picker.init(board, hashMove, killer1, killer2);
+ * for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+ *     board.makeMove(move);
+ *     ...
+ *     board.unmakeMove();
+ * }
+ * }</pre>
+ */
+public class MovePicker {
+
+    private static final int STAGE_HASH_MOVE = 0;
+    private static final int STAGE_GENERATE_CAPTURES = 1;
+    private static final int STAGE_GOOD_CAPTURES = 2;
+    private static final int STAGE_PROMOTIONS = 3;
+    private static final int STAGE_KILLERS = 4;
+    private static final int STAGE_GENERATE_QUIETS = 5;
+    private static final int STAGE_QUIETS = 6;
+    private static final int STAGE_BAD_CAPTURES = 7;
+    private static final int STAGE_DONE = 8;
+
+    private static final long PROMOTION_RANKS = Bitboard.getRankbb(Rank.RANK_1) | Bitboard.getRankbb(Rank.RANK_8);
+
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+    private final int[] badCaptures = new int[MoveGenerator.MAX_MOVES];
+    private final int[] killers = new int[2];
+    private Board board;
+    private int hashMove;
+    private int stage;
+    private int current;
+    private int end;
+    private int badCaptureCount;
+    private int killerIndex;
+    private boolean capturesOnly;
+    private boolean skipBadCaptures;
+
+    /**
+     * Prepares the picker to return all the legal moves of the position of the given board.
+     *
+     * @param board    the board of the position
+     * @param hashMove the move to try first, or {@link PackedMove#NONE}
+     * @param killer1  the first killer move, or {@link PackedMove#NONE}
+     * @param killer2  the second killer move, or {@link PackedMove#NONE}
+     */
+    public void init(Board board, int hashMove, int killer1, int killer2) {
+        this.board = board;
+        this.hashMove = hashMove;
+        this.killers[0] = killer1;
+        this.killers[1] = PackedMove.withoutFlags(killer2) == PackedMove.withoutFlags(killer1) ?
+                PackedMove.NONE : killer2;
+        this.capturesOnly = false;
+        this.skipBadCaptures = false;
+        this.stage = STAGE_HASH_MOVE;
+    }
+
+    /**
+     * Prepares the picker to return only the legal captures of the position of the given board, winning captures
+     * first, as required by a quiescence search. Promotions that do not capture any piece are not returned.
+     *
+     * @param board the board of the position
+     */
+    public void initCaptures(Board board) {
+        initCaptures(board, false);
+    }
+
+    /**
+     * Prepares the picker to return only the legal captures of the position of the given board, winning captures
+     * first, as required by a quiescence search, optionally skipping the losing captures. Promotions that do not
+     * capture any piece are not returned.
+     *
+     * @param board           the board of the position
+     * @param skipBadCaptures whether to skip the captures losing material according to the static exchange evaluation
+     */
+    public void initCaptures(Board board, boolean skipBadCaptures) {
+        this.board = board;
+        this.hashMove = PackedMove.NONE;
+        this.killers[0] = PackedMove.NONE;
+        this.killers[1] = PackedMove.NONE;
+        this.capturesOnly = true;
+        this.skipBadCaptures = skipBadCaptures;
+        this.stage = STAGE_GENERATE_CAPTURES;
+    }
+
+    /**
+     * Returns the next legal move of the position, or {@link PackedMove#NONE} if all the moves have been returned.
+     * <p>
+     * The board must not be modified between two invocations, or it must be restored to the same position before the
+     * next one.
+     *
+     * @return the next legal move, or {@link PackedMove#NONE} if no moves are left
+     */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_HASH_MOVE:
+                    stage = STAGE_GENERATE_CAPTURES;
+                    hashMove = MoveGenerator.findLegalMove(board, hashMove, moves);
+                    if (hashMove != PackedMove.NONE) {
+                        return hashMove;
+                    }
+                    break;
+                case STAGE_GENERATE_CAPTURES:
+                    end = MoveGenerator.generateLegalMoves(board, moves,
+                            board.getBitboard(board.getSideToMove().flip()));
+                    for (int i = 0; i < end; i++) {
+                        scores[i] = scoreCapture(moves[i]);
+                    }
+                    current = 0;
+                    badCaptureCount = 0;
+                    stage = STAGE_GOOD_CAPTURES;
+                    break;
+                case STAGE_GOOD_CAPTURES:
+                    while (current < end) {
+                        int move = pickBest();
+                        if (isHashMove(move)) {
+                            continue;
+                        }
+                        if (isBadCapture(move)) {
+                            if (!skipBadCaptures) {
+                                badCaptures[badCaptureCount++] = move;
+                            }
+                            continue;
+                        }
+                        return move;
+                    }
+                    if (capturesOnly) {
+                        current = 0;
+                        stage = STAGE_BAD_CAPTURES;
+                    } else {
+                        generatePromotions();
+                        stage = STAGE_PROMOTIONS;
+                    }
+                    break;
+                case STAGE_PROMOTIONS:
+                    while (current < end) {
+                        int move = pickBest();
+                        if (!isHashMove(move)) {
+                            return move;
+                        }
+                    }
+                    killerIndex = 0;
+                    stage = STAGE_KILLERS;
+                    break;
+                case STAGE_KILLERS:
+                    while (killerIndex < killers.length) {
+                        int killer = MoveGenerator.findLegalMove(board, killers[killerIndex], moves);
+                        if (killer != PackedMove.NONE && (PackedMove.isCapture(killer) ||
+                                PackedMove.isPromotion(killer) || isHashMove(killer))) {
+                            killer = PackedMove.NONE;
+                        }
+                        killers[killerIndex++] = killer;
+                        if (killer != PackedMove.NONE) {
+                            return killer;
+                        }
+                    }
+                    stage = STAGE_GENERATE_QUIETS;
+                    break;
+                case STAGE_GENERATE_QUIETS:
+                    end = MoveGenerator.generateLegalMoves(board, moves, ~board.getBitboard());
+                    current = 0;
+                    stage = STAGE_QUIETS;
+                    break;
+                case STAGE_QUIETS:
+                    while (current < end) {
+                        int move = moves[current++];
+                        if (!PackedMove.isPromotion(move) && !isHashMove(move) && !isKiller(move)) {
+                            return move;
+                        }
+                    }
+                    current = 0;
+                    stage = STAGE_BAD_CAPTURES;
+                    break;
+                case STAGE_BAD_CAPTURES:
+                    if (current < badCaptureCount) {
+                        return badCaptures[current++];
+                    }
+                    stage = STAGE_DONE;
+                    break;
+                default:
+                    return PackedMove.NONE;
+            }
+        }
+    }
+
+    private void generatePromotions() {
+        int n = MoveGenerator.generateLegalMoves(board, moves, ~board.getBitboard() & PROMOTION_RANKS);
+        end = 0;
+        for (int i = 0; i < n; i++) {
+            if (PackedMove.isPromotion(moves[i])) {
+                moves[end] = moves[i];
+                scores[end++] = Board.getSeePieceValue(PackedMove.getPromotion(moves[i]).getPieceType());
+            }
+        }
+        current = 0;
+    }
+
+    /*
+     * selects the move with the highest score among the ones left, and moves it to the current position
+     */
+    private int pickBest() {
+        int best = current;
+        for (int i = current + 1; i < end; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        int score = scores[best];
+        moves[best] = moves[current];
+        scores[best] = scores[current];
+        moves[current] = move;
+        scores[current] = score;
+        current++;
+        return move;
+    }
+
+    private int scoreCapture(int move) {
+        int score = Board.getSeePieceValue(victim(move)) * 8 -
+                Board.getSeePieceValue(board.getPiece(PackedMove.getFrom(move)).getPieceType()) / 100;
+        if (PackedMove.isPromotion(move)) {
+            score += Board.getSeePieceValue(PackedMove.getPromotion(move).getPieceType()) * 8;
+        }
+        return score;
+    }
+
+    /*
+     * a capture is considered losing when the exchange it starts on the target square loses material
+     */
+    private boolean isBadCapture(int move) {
+        return !board.seeGreaterOrEqual(move, 0);
+    }
+
+    private PieceType victim(int move) {
+        return PackedMove.isEnPassant(move) ? PieceType.PAWN : board.getPiece(PackedMove.getTo(move)).getPieceType();
+    }
+
+    private boolean isHashMove(int move) {
+        return hashMove != PackedMove.NONE && PackedMove.withoutFlags(move) == PackedMove.withoutFlags(hashMove);
+    }
+
+    private boolean isKiller(int move) {
+        int key = PackedMove.withoutFlags(move);
+        return (killers[0] != PackedMove.NONE && key == PackedMove.withoutFlags(killers[0])) ||
+                (killers[1] != PackedMove.NONE && key == PackedMove.withoutFlags(killers[1]));
+    }
+}
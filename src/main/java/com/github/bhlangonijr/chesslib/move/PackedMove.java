@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.move;
+
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.Square;
+
+/**
+ * A handy collection of static utility methods for encoding chess moves as primitive integers, and for decoding them
+ * back. A packed move is a compact, allocation-free alternative to {@link Move}, well suited to be stored in plain
+ * {@code int} arrays by move generators and search routines.
+ * <p>
+ * The bits of a packed move are laid out as follows:
+ * <ul>
+ *     <li>bits 0-5: the index of the origin square;</li>
+ *     <li>bits 6-11: the index of the destination square;</li>
+ *     <li>bits 12-15: the promotion piece, {@code 0} when the move is not a promotion;</li>
+ *     <li>bits 16-19: the move flags, such as {@link PackedMove#CAPTURE} or {@link PackedMove#CASTLE}.</li>
+ * </ul>
+ * The value {@link PackedMove#NONE} is reserved to represent the absence of a move.
+ */
+public final class PackedMove {
+
+    /**
+     * The special value that represents no move.
+     */
+    public static final int NONE = 0;
+    /**
+     * The flag set on moves that capture an enemy piece, including en passant captures.
+     */
+    public static final int CAPTURE = 1 << 16;
+    /**
+     * The flag set on en passant captures.
+     */
+    public static final int EN_PASSANT = 1 << 17;
+    /**
+     * The flag set on castle moves, that are encoded as king moves.
+     */
+    public static final int CASTLE = 1 << 18;
+    /**
+     * The flag set on pawn moves advancing by two squares.
+     */
+    public static final int DOUBLE_PUSH = 1 << 19;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0xF;
+    private static final int MOVE_MASK = 0xFFFF;
+    private static final int FLAGS_MASK = 0xF << 16;
+
+    private static final Square[] allSquares = Square.values();
+    private static final Piece[] promotions = new Piece[PROMOTION_MASK + 1];
+
+    static {
+        promotions[0] = Piece.NONE;
+        for (Piece piece : Piece.allPieces) {
+            if (piece != Piece.NONE) {
+                promotions[piece.ordinal() + 1] = piece;
+            }
+        }
+    }
+
+    private PackedMove() {
+    }
+
+    /**
+     * Encodes a move given the indexes of its origin and destination squares, the promotion piece and the flags.
+     *
+     * @param from      the index of the origin square
+     * @param to        the index of the destination square
+     * @param promotion the promotion piece, or {@link Piece#NONE} if the move is not a promotion
+     * @param flags     the flags of the move, combined with a bitwise OR
+     * @return the packed move
+     */
+    public static int encode(int from, int to, Piece promotion, int flags) {
+        return from | (to << TO_SHIFT) | (promotionCode(promotion) << PROMOTION_SHIFT) | flags;
+    }
+
+    /**
+     * Encodes a move given its origin and destination squares and the promotion piece. The resulting packed move
+     * carries no flags.
+     *
+     * @param from      the origin square
+     * @param to        the destination square
+     * @param promotion the promotion piece, or {@link Piece#NONE} if the move is not a promotion
+     * @return the packed move
+     */
+    public static int encode(Square from, Square to, Piece promotion) {
+        return encode(from.ordinal(), to.ordinal(), promotion, 0);
+    }
+
+    /**
+     * Encodes a {@link Move} object. The resulting packed move carries no flags.
+     *
+     * @param move the move to encode
+     * @return the packed move
+     */
+    public static int encode(Move move) {
+        return encode(move.getFrom(), move.getTo(), move.getPromotion());
+    }
+
+    /**
+     * Decodes a packed move into a new {@link Move} object.
+     *
+     * @param move the packed move
+     * @return the decoded move
+     */
+    public static Move toMove(int move) {
+        return new Move(getFrom(move), getTo(move), getPromotion(move));
+    }
+
+    /**
+     * Returns the index of the origin square of a packed move.
+     *
+     * @param move the packed move
+     * @return the index of the origin square
+     */
+    public static int getFromIndex(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the index of the destination square of a packed move.
+     *
+     * @param move the packed move
+     * @return the index of the destination square
+     */
+    public static int getToIndex(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the origin square of a packed move.
+     *
+     * @param move the packed move
+     * @return the origin square
+     */
+    public static Square getFrom(int move) {
+        return allSquares[getFromIndex(move)];
+    }
+
+    /**
+     * Returns the destination square of a packed move.
+     *
+     * @param move the packed move
+     * @return the destination square
+     */
+    public static Square getTo(int move) {
+        return allSquares[getToIndex(move)];
+    }
+
+    /**
+     * Returns the promotion piece of a packed move.
+     *
+     * @param move the packed move
+     * @return the promotion piece, or {@link Piece#NONE} if the move is not a promotion
+     */
+    public static Piece getPromotion(int move) {
+        return promotions[(move >>> PROMOTION_SHIFT) & PROMOTION_MASK];
+    }
+
+    /**
+     * Returns the flags of a packed move.
+     *
+     * @param move the packed move
+     * @return the flags of the move
+     */
+    public static int getFlags(int move) {
+        return move & FLAGS_MASK;
+    }
+
+    /**
+     * Returns the packed move stripped of its flags. Two packed moves describing the same piece movement are equal once
+     * their flags are removed, regardless of how they were generated.
+     *
+     * @param move the packed move
+     * @return the packed move without flags
+     */
+    public static int withoutFlags(int move) {
+        return move & MOVE_MASK;
+    }
+
+    /**
+     * Checks if the packed move is a promotion.
+     *
+     * @param move the packed move
+     * @return {@code true} if the move is a promotion
+     */
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+    }
+
+    /**
+     * Checks if the packed move captures an enemy piece.
+     *
+     * @param move the packed move
+     * @return {@code true} if the move is a capture
+     */
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * Checks if the packed move is an en passant capture.
+     *
+     * @param move the packed move
+     * @return {@code true} if the move is an en passant capture
+     */
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    /**
+     * Checks if the packed move is a castle move.
+     *
+     * @param move the packed move
+     * @return {@code true} if the move is a castle move
+     */
+    public static boolean isCastle(int move) {
+        return (move & CASTLE) != 0;
+    }
+
+    /**
+     * Returns a string representation of a packed move, in the same format of {@link Move#toString()}.
+     *
+     * @param move the packed move
+     * @return a string representation of the packed move
+     */
+    public static String toString(int move) {
+        return toMove(move).toString();
+    }
+
+    private static int promotionCode(Piece promotion) {
+        return promotion == null || promotion == Piece.NONE ? 0 : promotion.ordinal() + 1;
+    }
+}
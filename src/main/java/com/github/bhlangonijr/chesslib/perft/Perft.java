@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.perft;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.MoveGenerator;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
+
+/**
+ * A performance test (perft) utility, that walks the tree of the legal moves of a position up to a given depth and
+ * counts its leaf nodes. Comparing the node counts against well-known reference values is the standard way to verify
+ * the correctness of a move generator, as well as to measure its speed.
+ * <p>
+ * The subtree of each root move is searched by a different task of a {@link ForkJoinPool}, working on its own copy
+ * of the board. Optionally, the tasks can be split further at deeper plies, which helps balancing the load when the
+ * root position has only a few legal moves.
+ * <p>
+ * The moves of the last ply are never generated, the leaf nodes are just counted with
+ * {@link MoveGenerator#countLegalMoves(Board)} (bulk counting).
+ * <p>
+ * When a {@link PerftHashTable} is provided, the node counts of the subtrees already visited are cached and shared
+ * among all the tasks, so that transpositions are counted without being searched again.
+ */
+public class Perft {
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final PerftHashTable hashTable;
+
+    /**
+     * Constructs a new perft utility using the common {@link ForkJoinPool}, and splitting the work at the root
+     * position only.
+     */
+    public Perft() {
+        this(ForkJoinPool.commonPool(), 1);
+    }
+
+    /**
+     * Constructs a new perft utility using the given pool of threads.
+     *
+     * @param pool       the pool of threads used to run the tasks
+     * @param splitDepth the number of plies, starting from the root, at which the work is split into parallel tasks.
+     *                   With value 1 a task is created for each root move, with value 2 a task is created for each
+     *                   reply to the root moves as well, and so on
+     * @throws IllegalArgumentException if the split depth is lower than 1
+     */
+    public Perft(ForkJoinPool pool, int splitDepth) {
+        this(pool, splitDepth, null);
+    }
+
+    /**
+     * Constructs a new perft utility using the given pool of threads and caching the node counts in the given hash
+     * table.
+     *
+     * @param pool       the pool of threads used to run the tasks
+     * @param splitDepth the number of plies, starting from the root, at which the work is split into parallel tasks
+     * @param hashTable  the hash table shared by the tasks, or {@code null} to disable caching
+     * @throws IllegalArgumentException if the split depth is lower than 1
+     */
+    public Perft(ForkJoinPool pool, int splitDepth, PerftHashTable hashTable) {
+        if (splitDepth < 1) {
+            throw new IllegalArgumentException("Split depth must be at least 1: " + splitDepth);
+        }
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+        this.hashTable = hashTable;
+    }
+
+    /**
+     * Counts the leaf nodes of the tree of legal moves of the given position, up to the given depth, on the current
+     * thread.
+     *
+     * @param board the board of the position to test
+     * @param depth the depth of the tree
+     * @return the number of leaf nodes
+     */
+    public static long perft(Board board, int depth) {
+        return perft(board, depth, null);
+    }
+
+    /**
+     * Counts the leaf nodes of the tree of legal moves of the given position, up to the given depth, on the current
+     * thread, caching the node counts of the visited subtrees in the given hash table.
+     *
+     * @param board     the board of the position to test
+     * @param depth     the depth of the tree
+     * @param hashTable the hash table used to cache the node counts, or {@code null} to disable caching
+     * @return the number of leaf nodes
+     */
+    public static long perft(Board board, int depth, PerftHashTable hashTable) {
+        return perft(board, depth, new int[Math.max(depth, 0) + 1][MoveGenerator.MAX_MOVES], hashTable);
+    }
+
+    private static long perft(Board board, int depth, int[][] buffers, PerftHashTable hashTable) {
+        if (depth <= 0) {
+            return 1;
+        }
+        long key = board.getIncrementalHashKey();
+        if (hashTable != null && depth > 1) {
+            long cachedNodes = hashTable.probe(key, depth);
+            if (cachedNodes >= 0) {
+                return cachedNodes;
+            }
+        }
+        if (depth == 1) {
+            return MoveGenerator.countLegalMoves(board);
+        }
+        int[] moves = buffers[depth];
+        int count = MoveGenerator.generateLegalMoves(board, moves);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += perft(board, depth - 1, buffers, hashTable);
+            board.unmakeMove();
+        }
+        if (hashTable != null) {
+            hashTable.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes of the tree of legal moves of the position described by the given Forsyth-Edwards Notation
+     * (FEN) string, up to the given depth, and reports the nodes found under each root move.
+     *
+     * @param fen   the FEN string of the position to test
+     * @param depth the depth of the tree
+     * @return the result of the test
+     */
+    public PerftResult divide(String fen, int depth) {
+        Board board = new Board();
+        board.setEnableEvents(false);
+        board.loadFromFen(fen);
+        return divide(board, depth);
+    }
+
+    /**
+     * Counts the leaf nodes of the tree of legal moves of the given position, up to the given depth, and reports the
+     * nodes found under each root move. The board passed in input is not modified.
+     *
+     * @param board the board of the position to test
+     * @param depth the depth of the tree
+     * @return the result of the test
+     */
+    public PerftResult divide(Board board, int depth) {
+        long start = System.nanoTime();
+        Map<Move, Long> divide = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return new PerftResult(1, divide, System.nanoTime() - start);
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(board, moves);
+        List<PerftTask> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PerftTask task = new PerftTask(childOf(board, moves[i]), depth - 1, splitDepth - 1, hashTable);
+            tasks.add(task);
+            pool.execute(task);
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            long partialNodes = tasks.get(i).join();
+            divide.put(PackedMove.toMove(moves[i]), partialNodes);
+            nodes += partialNodes;
+        }
+        return new PerftResult(nodes, divide, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the leaf nodes of the tree of legal moves of the given position, up to the given depth. The board passed
+     * in input is not modified.
+     *
+     * @param board the board of the position to test
+     * @param depth the depth of the tree
+     * @return the number of leaf nodes
+     */
+    public long count(Board board, int depth) {
+        return divide(board, depth).getNodes();
+    }
+
+    private static Board childOf(Board board, int move) {
+        Board child = board.clone();
+        child.setEnableEvents(false);
+        child.makeMove(move);
+        return child;
+    }
+
+    private static class PerftTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+        private final int splitDepth;
+        private final PerftHashTable hashTable;
+
+        PerftTask(Board board, int depth, int splitDepth, PerftHashTable hashTable) {
+            this.board = board;
+            this.depth = depth;
+            this.splitDepth = splitDepth;
+            this.hashTable = hashTable;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitDepth <= 0 || depth <= 1) {
+                return perft(board, depth, hashTable);
+            }
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = MoveGenerator.generateLegalMoves(board, moves);
+            List<PerftTask> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                tasks.add(new PerftTask(childOf(board, moves[i]), depth - 1, splitDepth - 1, hashTable));
+            }
+            long nodes = 0;
+            for (PerftTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.perft;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table caching the number of leaf nodes found by a performance test (perft) under a position,
+ * searched to a given depth. Positions are identified by their Zobrist key, as returned by
+ * {@link com.github.bhlangonijr.chesslib.Board#getIncrementalHashKey()}.
+ * <p>
+ * The table is backed by a single array of primitive longs, two per entry: the entry data, packing the node count and
+ * the depth, and the key XOR-ed with the data. The table can be shared by multiple threads without any locking, since
+ * an entry torn by concurrent writes fails the key verification and it is simply treated as a miss.
+ * <p>
+ * As with any hashing scheme, a collision of two different positions on the same 64-bit key, although very unlikely,
+ * would make the node counts incorrect.
+ */
+public class PerftHashTable {
+
+    /**
+     * The policy that decides whether a new entry overwrites the entry already stored in the same slot of the table.
+     */
+    public enum ReplacementPolicy {
+        /**
+         * New entries always overwrite old ones.
+         */
+        ALWAYS,
+        /**
+         * New entries overwrite old ones only if searched at the same or a greater depth, so that the most expensive
+         * subtrees are preserved.
+         */
+        DEPTH_PREFERRED
+    }
+
+    private static final int ENTRY_SIZE = 2;
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    private static final int MAX_ENTRIES = 1 << 29;
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+
+    private final long[] table;
+    private final int indexMask;
+    private final ReplacementPolicy replacementPolicy;
+
+    /**
+     * Constructs a new hash table of the given size, using the {@link ReplacementPolicy#DEPTH_PREFERRED} replacement
+     * policy.
+     *
+     * @param sizeInMb the size of the table, in megabytes
+     */
+    public PerftHashTable(int sizeInMb) {
+        this(sizeInMb, ReplacementPolicy.DEPTH_PREFERRED);
+    }
+
+    /**
+     * Constructs a new hash table of the given size, using the given replacement policy. The number of entries is
+     * rounded down to the nearest power of two that fits in the requested size.
+     *
+     * @param sizeInMb          the size of the table, in megabytes
+     * @param replacementPolicy the replacement policy of the table
+     * @throws IllegalArgumentException if the size is lower than one megabyte
+     */
+    public PerftHashTable(int sizeInMb, ReplacementPolicy replacementPolicy) {
+        if (sizeInMb < 1) {
+            throw new IllegalArgumentException("Hash table size must be at least 1 MB: " + sizeInMb);
+        }
+        long entries = (sizeInMb * 1024L * 1024L) / (ENTRY_SIZE * Long.BYTES);
+        int capacity = (int) Math.min(Long.highestOneBit(entries), MAX_ENTRIES);
+        this.table = new long[capacity * ENTRY_SIZE];
+        this.indexMask = capacity - 1;
+        this.replacementPolicy = replacementPolicy;
+    }
+
+    /**
+     * Looks up the number of leaf nodes stored for a position searched to the given depth.
+     *
+     * @param key   the Zobrist key of the position
+     * @param depth the depth of the search
+     * @return the number of leaf nodes, or {@code -1} if no entry is found
+     */
+    public long probe(long key, int depth) {
+        int index = index(key, depth);
+        long data = table[index + 1];
+        long check = table[index];
+        if ((check ^ data) == key && (data & DEPTH_MASK) == depth) {
+            return data >>> DEPTH_BITS;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores the number of leaf nodes found under a position searched to the given depth. Whether an existing entry
+     * is overwritten depends on the replacement policy of the table.
+     *
+     * @param key   the Zobrist key of the position
+     * @param depth the depth of the search, up to 255
+     * @param nodes the number of leaf nodes
+     */
+    public void store(long key, int depth, long nodes) {
+        int index = index(key, depth);
+        if (replacementPolicy == ReplacementPolicy.DEPTH_PREFERRED &&
+                (table[index + 1] & DEPTH_MASK) > depth) {
+            return;
+        }
+        long data = (nodes << DEPTH_BITS) | (depth & DEPTH_MASK);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    /**
+     * Removes all the entries from the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * Returns the number of entries the table can hold.
+     *
+     * @return the capacity of the table
+     */
+    public int getCapacity() {
+        return indexMask + 1;
+    }
+
+    /**
+     * Returns the replacement policy of the table.
+     *
+     * @return the replacement policy
+     */
+    public ReplacementPolicy getReplacementPolicy() {
+        return replacementPolicy;
+    }
+
+    private int index(long key, int depth) {
+        long hash = key ^ (depth * DEPTH_MIX);
+        return ((int) (hash ^ (hash >>> 32)) & indexMask) * ENTRY_SIZE;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.perft;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+
+/**
+ * The outcome of a performance test (perft) run. It holds the total number of leaf nodes found, the number of nodes
+ * found under each legal move of the root position (the so-called <i>divide</i>), and the time spent computing them.
+ */
+public class PerftResult {
+
+    private final long nodes;
+    private final Map<Move, Long> divide;
+    private final long elapsedNanos;
+
+    /**
+     * Constructs a new perft result.
+     *
+     * @param nodes        the total number of leaf nodes
+     * @param divide       the number of leaf nodes under each root move, in the order the moves were generated
+     * @param elapsedNanos the time spent in the computation, in nanoseconds
+     */
+    public PerftResult(long nodes, Map<Move, Long> divide, long elapsedNanos) {
+        this.nodes = nodes;
+        this.divide = Collections.unmodifiableMap(divide);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the total number of leaf nodes found.
+     *
+     * @return the total number of leaf nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of leaf nodes found under each legal move of the root position, in the order the moves were
+     * generated.
+     *
+     * @return an unmodifiable map of the leaf nodes under each root move
+     */
+    public Map<Move, Long> getDivide() {
+        return divide;
+    }
+
+    /**
+     * Returns the time spent in the computation, in milliseconds.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedTime() {
+        return elapsedNanos / 1_000_000L;
+    }
+
+    /**
+     * Returns the number of leaf nodes found per second of computation.
+     *
+     * @return the nodes per second
+     */
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0L ? 0L : (long) (nodes * 1_000_000_000.0 / elapsedNanos);
+    }
+
+    /**
+     * Returns a string representation of this result, in the customary <i>divide</i> format: the nodes under each
+     * root move, one per line, followed by the total node count and the speed of the computation.
+     *
+     * @return a string representation of the result
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Move, Long> entry : divide.entrySet()) {
+            sb.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        sb.append("Nodes: ").append(nodes).append('\n');
+        sb.append("Time: ").append(getElapsedTime()).append(" ms\n");
+        sb.append("Nodes/s: ").append(getNodesPerSecond());
+        return sb.toString();
+    }
+}
@@ -29,9 +29,15 @@ import com.github.bhlangonijr.chesslib.game.TimeControl;
 import com.github.bhlangonijr.chesslib.util.StringUtil;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 import static com.github.bhlangonijr.chesslib.pgn.PgnProperty.UTF8_BOM;
 import static com.github.bhlangonijr.chesslib.pgn.PgnProperty.isProperty;
@@ -44,6 +50,8 @@ import static com.github.bhlangonijr.chesslib.pgn.PgnProperty.parsePgnProperty;
  */
 public class GameLoader {
 
+    private static final String[] RESULTS = {"1-0", "0-1", "1/2-1/2", "*"};
+
     /**
      * Loads the next game of chess from an iterator over the lines of a Portable Game Notation (PGN) file. The
      * iteration ends when the game is fully loaded, hence the iterator is not consumed more than necessary.
@@ -52,49 +60,141 @@ public class GameLoader {
      * @return the next game read from the iterator
      */
     public static Game loadNextGame(Iterator<String> iterator) {
+        return loadNextGame(iterator, true);
+    }
+
+    /**
+     * Loads the next game of chess from an iterator over the lines of a Portable Game Notation (PGN) file, optionally
+     * skipping the replay of its moves. The iteration ends when the game is fully loaded, hence the iterator is not
+     * consumed more than necessary.
+     * <p>
+     * When the moves are not loaded, only the tag pairs of the game are parsed, while its move text is kept as is,
+     * stripped of the result, and is available through {@link Game#getMoveText()}. The moves can be replayed later,
+     * when actually needed, invoking {@link Game#loadMoveText()}. In that case the ply count of the game is the one
+     * stated in its {@code PlyCount} tag, if any.
+     *
+     * @param iterator     the iterator over the lines of a PGN file
+     * @param loadMoveText whether to replay the moves of the game, or to parse only its tag pairs
+     * @return the next game read from the iterator
+     */
+    public static Game loadNextGame(Iterator<String> iterator, boolean loadMoveText) {
 
         if (!iterator.hasNext()) {
             return null;
         }
+        return loadGame(iterator, new PgnTempContainer(), Collections.emptyList(), null, loadMoveText);
+    }
 
-        PgnTempContainer container = new PgnTempContainer();
+    /**
+     * Loads the next game of chess matching a filter from an iterator over the lines of a Portable Game Notation (PGN)
+     * file, optionally skipping the replay of its moves. The iteration ends when a matching game is fully loaded, hence
+     * the iterator is not consumed more than necessary.
+     * <p>
+     * The filter is evaluated on the tag pairs of each game as soon as its tag section is read, before any object of
+     * the game is created. The tags are passed to the filter as a map from their names, compared ignoring case, to
+     * their values, e.g. {@code tags -> Integer.parseInt(tags.getOrDefault("WhiteElo", "0")) > 2400}. The move text
+     * of the games not matching the filter is skipped without being parsed.
+     *
+     * @param iterator     the iterator over the lines of a PGN file
+     * @param filter       the filter the tag pairs of the game must match
+     * @param loadMoveText whether to replay the moves of the game, or to parse only its tag pairs
+     * @return the next game matching the filter read from the iterator, or {@code null} if no game is left
+     * @see GameLoader#loadNextGame(Iterator, boolean)
+     */
+    public static Game loadNextGame(Iterator<String> iterator, Predicate<Map<String, String>> filter,
+                                    boolean loadMoveText) {
 
         while (iterator.hasNext()) {
-            String line = iterator.next().trim();
-            if (line.startsWith(UTF8_BOM)) {
-                line = line.substring(1);
+            List<PgnProperty> properties = new ArrayList<>();
+            Map<String, String> tags = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            String line = null;
+            while (line == null && iterator.hasNext()) {
+                line = nextLine(iterator);
+                if (isProperty(line)) {
+                    PgnProperty property = parsePgnProperty(line);
+                    if (property != null) {
+                        properties.add(property);
+                        tags.put(property.name, property.value);
+                    }
+                    line = null;
+                } else if (StringUtils.isEmpty(line)) {
+                    line = null;
+                }
             }
-            try {
+            if (line == null && properties.isEmpty()) {
+                return null;
+            }
+            if (filter.test(tags)) {
+                return loadGame(iterator, new PgnTempContainer(), properties, line, loadMoveText);
+            }
+            // skips the move text of the game, up to its result
+            while (line != null && !isEndGame(line) && iterator.hasNext()) {
+                line = nextLine(iterator);
+            }
+        }
+        return null;
+    }
+
+    /*
+     * loads the rest of a game into the container, starting from the properties already parsed and from a pending line
+     * not yet processed, if any
+     */
+    private static Game loadGame(Iterator<String> iterator, PgnTempContainer container, List<PgnProperty> properties,
+                                 String pendingLine, boolean loadMoveText) {
+
+        try {
+            for (PgnProperty property : properties) {
+                addProperty(property, container, loadMoveText);
+            }
+            String line = pendingLine;
+            while (line != null || iterator.hasNext()) {
+                if (line == null) {
+                    line = nextLine(iterator);
+                }
                 if (isProperty(line)) {
-                    addProperty(line, container);
+                    addProperty(line, container, loadMoveText);
                 } else if (StringUtils.isNotEmpty(line)) {
                     addMoveText(line, container);
                     if (isEndGame(line)) {
-                        setMoveText(container.game, container.moveText);
+                        setMoveText(container.game, container.moveText, loadMoveText);
                         return container.initGame ? container.game : null;
                     }
                 }
-            } catch (Exception e) { //TODO stricter exceptions
-                String name = container.event.getName();
-                int r = container.round.getNumber();
-                throw new PgnException(String.format("Error parsing PGN[%d, %s]: ", r, name), e);
+                line = null;
             }
+        } catch (Exception e) { //TODO stricter exceptions
+            String name = container.event.getName();
+            int r = container.round.getNumber();
+            throw new PgnException(String.format("Error parsing PGN[%d, %s]: ", r, name), e);
         }
         return container.initGame ? container.game : null;
     }
 
-    private static void addProperty(String line, PgnTempContainer container) throws Exception {
+    private static String nextLine(Iterator<String> iterator) {
+        String line = iterator.next().trim();
+        if (line.startsWith(UTF8_BOM)) {
+            line = line.substring(1);
+        }
+        return line;
+    }
+
+    private static void addProperty(String line, PgnTempContainer container, boolean loadMoveText)
+            throws Exception {
         PgnProperty property = parsePgnProperty(line);
-        if (property == null) {
-            return;
+        if (property != null) {
+            addProperty(property, container, loadMoveText);
         }
+    }
+
+    private static void addProperty(PgnProperty property, PgnTempContainer container, boolean loadMoveText)
+            throws Exception {
         container.initGame = true;
         String tag = property.name.toLowerCase().trim();
         //begin
         switch (tag) {
             case "event":
                 if (container.moveTextParsing && container.game.getHalfMoves().size() == 0) {
-                    setMoveText(container.game, container.moveText);
+                    setMoveText(container.game, container.moveText, loadMoveText);
                 }
                 container.event.setName(property.value);
                 container.event.setId(property.value);
@@ -240,18 +340,36 @@ public class GameLoader {
         }
     }
 
-    private static void setMoveText(Game game, StringBuilder moveText) throws Exception {
+    private static void setMoveText(Game game, StringBuilder moveText, boolean loadMoveText) throws Exception {
 
-        //clear game result
-        StringUtil.replaceAll(moveText, "1-0", StringUtils.EMPTY);
-        StringUtil.replaceAll(moveText, "0-1", StringUtils.EMPTY);
-        StringUtil.replaceAll(moveText, "1/2-1/2", StringUtils.EMPTY);
-        StringUtil.replaceAll(moveText, "*", StringUtils.EMPTY);
+        if (loadMoveText) {
+            //clear game result
+            StringUtil.replaceAll(moveText, "1-0", StringUtils.EMPTY);
+            StringUtil.replaceAll(moveText, "0-1", StringUtils.EMPTY);
+            StringUtil.replaceAll(moveText, "1/2-1/2", StringUtils.EMPTY);
+            StringUtil.replaceAll(moveText, "*", StringUtils.EMPTY);
 
-        game.setMoveText(moveText);
-        game.loadMoveText(moveText);
-
-        game.setPlyCount(String.valueOf(game.getHalfMoves().size()));
+            game.setMoveText(moveText);
+            game.loadMoveText(moveText);
+            game.setPlyCount(String.valueOf(game.getHalfMoves().size()));
+        } else {
+            // the result is always the last token, the rest of the move text is processed when the moves are loaded
+            stripResult(moveText);
+            game.setMoveText(moveText);
+        }
+    }
 
+    private static void stripResult(StringBuilder moveText) {
+        int end = moveText.length();
+        while (end > 0 && Character.isWhitespace(moveText.charAt(end - 1))) {
+            end--;
+        }
+        for (String result : RESULTS) {
+            int start = end - result.length();
+            if (start >= 0 && moveText.indexOf(result, start) == start) {
+                moveText.setLength(start);
+                return;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.pgn;
+
+import com.github.bhlangonijr.chesslib.game.Game;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * A loader of Portable Game Notation (PGN) files that parses the games on multiple threads.
+ * <p>
+ * The file is split into chunks of roughly the same size, each one ending right before a line starting with the
+ * {@code [Event } tag, so that no game is split across two chunks. The chunks are parsed by the tasks of an
+ * {@link ExecutorService}, using a {@link GameLoader} each, and the games are delivered to a consumer either in the
+ * order they appear in the file, or in the order their chunks are parsed. The consumer is always invoked by the thread
+ * loading the file, hence it does not need to be thread-safe.
+ * <p>
+ * Only a bounded number of chunks is parsed ahead of the consumer, so that the memory used by the loader does not
+ * depend on the size of the file. The file is decoded as UTF-8.
+ */
+public class ParallelPgnLoader {
+
+    /**
+     * The default size of the chunks the file is split into, in bytes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final byte[] EVENT_TAG = "\n[Event ".getBytes(StandardCharsets.US_ASCII);
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE - 8;
+
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final boolean ordered;
+    private final int maxPendingChunks;
+
+    /**
+     * Constructs a new parallel PGN loader that parses the games on the given executor, using chunks of the default
+     * size, and delivers the games in the order they appear in the file.
+     *
+     * @param executor the executor the chunks are parsed on
+     */
+    public ParallelPgnLoader(ExecutorService executor) {
+        this(executor, DEFAULT_CHUNK_SIZE, true);
+    }
+
+    /**
+     * Constructs a new parallel PGN loader that parses the games on the given executor.
+     *
+     * @param executor  the executor the chunks are parsed on
+     * @param chunkSize the approximate size of the chunks the file is split into, in bytes
+     * @param ordered   whether to deliver the games in the order they appear in the file, or as soon as they are
+     *                  parsed
+     * @throws IllegalArgumentException if the chunk size is not positive
+     */
+    public ParallelPgnLoader(ExecutorService executor, int chunkSize, boolean ordered) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.ordered = ordered;
+        this.maxPendingChunks = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Loads the games of a PGN file, delivering them to a consumer.
+     *
+     * @param filename the PGN filename
+     * @param consumer the consumer of the games
+     * @return the statistics of the loading
+     * @throws IOException  in case of error reading the file
+     * @throws PgnException in case of error parsing a game
+     */
+    public PgnLoadStatistics load(String filename, Consumer<Game> consumer) throws IOException {
+        return load(Paths.get(filename), consumer);
+    }
+
+    /**
+     * Loads the games of a PGN file, delivering them to a consumer.
+     *
+     * @param path     the path of the PGN file
+     * @param consumer the consumer of the games
+     * @return the statistics of the loading
+     * @throws IOException  in case of error reading the file
+     * @throws PgnException in case of error parsing a game
+     */
+    public PgnLoadStatistics load(Path path, Consumer<Game> consumer) throws IOException {
+        long startTime = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            CompletionService<List<Game>> completion = ordered ? null : new ExecutorCompletionService<>(executor);
+            Deque<Future<List<Game>>> pending = new ArrayDeque<>();
+            long position = 0;
+            long games = 0;
+            int chunks = 0;
+            try {
+                while (position < size || !pending.isEmpty()) {
+                    while (position < size && pending.size() < maxPendingChunks) {
+                        final long start = position;
+                        final long end = nextChunkEnd(channel, start, size);
+                        Callable<List<Game>> task = () -> parseChunk(channel, start, end);
+                        pending.add(ordered ? executor.submit(task) : completion.submit(task));
+                        position = end;
+                        chunks++;
+                    }
+                    Future<List<Game>> parsed;
+                    if (ordered) {
+                        parsed = pending.poll();
+                    } else {
+                        parsed = completion.take();
+                        pending.remove(parsed);
+                    }
+                    for (Game game : parsed.get()) {
+                        consumer.accept(game);
+                        games++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while loading PGN file " + path);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                } else if (e.getCause() instanceof PgnException) {
+                    throw (PgnException) e.getCause();
+                }
+                throw new PgnException("Error parsing PGN file " + path, e.getCause());
+            } finally {
+                // tasks are not interrupted, as interrupting a read would close the channel shared by all of them
+                for (Future<List<Game>> future : pending) {
+                    future.cancel(false);
+                }
+            }
+            return new PgnLoadStatistics(games, size, chunks, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /*
+     * returns the end of the chunk starting at the given position, that is the start of the first line beginning with
+     * the event tag after the requested chunk size, or the end of the file
+     */
+    private long nextChunkEnd(FileChannel channel, long start, long size) throws IOException {
+        long position = start + chunkSize - 1;
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = readFully(channel, buffer, position);
+            byte[] bytes = buffer.array();
+            for (int i = 0; i + EVENT_TAG.length <= read; i++) {
+                if (matchesEventTag(bytes, i)) {
+                    return checkChunkSize(start, position + i + 1);
+                }
+            }
+            if (position + read >= size) {
+                break;
+            }
+            // the next block overlaps the current one, to match an event tag split across the two
+            position += read - EVENT_TAG.length + 1;
+        }
+        return checkChunkSize(start, size);
+    }
+
+    private static boolean matchesEventTag(byte[] bytes, int offset) {
+        for (int j = 0; j < EVENT_TAG.length; j++) {
+            if (bytes[offset + j] != EVENT_TAG[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long checkChunkSize(long start, long end) throws IOException {
+        if (end - start > MAX_CHUNK_SIZE) {
+            throw new IOException("No game boundary found in " + (end - start) + " bytes starting at offset " + start);
+        }
+        return end;
+    }
+
+    private static List<Game> parseChunk(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        int read = readFully(channel, buffer, start);
+        String text = new String(buffer.array(), 0, read, StandardCharsets.UTF_8);
+        Iterator<String> lines = text.lines().iterator();
+        List<Game> games = new ArrayList<>();
+        for (Game game = GameLoader.loadNextGame(lines); game != null; game = GameLoader.loadNextGame(lines)) {
+            games.add(game);
+        }
+        return games;
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+}
@@ -20,12 +20,15 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
 
 import com.github.bhlangonijr.chesslib.game.Event;
 import com.github.bhlangonijr.chesslib.game.Game;
@@ -134,19 +137,41 @@ public class PgnHolder {
         loadPgn(new LargeFile(getFileName()));
     }
 
+    /**
+     * Loads into memory the chess data stored in the PGN file referred by the holder, parsing the games in parallel on
+     * the given executor. The games are added to the holder in the same order they appear in the file.
+     *
+     * @param executor the executor the games are parsed on
+     * @return the statistics of the loading
+     * @throws Exception in case of error loading the contents of the file
+     * @see ParallelPgnLoader
+     */
+    public PgnLoadStatistics loadPgn(ExecutorService executor) throws Exception {
+        size = 0;
+        return new ParallelPgnLoader(executor).load(getFileName(), this::addGame);
+    }
+
     /**
      * Counts the games present in the PGN file.
      * <p>
      * It does not load the contents of the file, but rather checks into the data how many events are persisted. In
-     * order to do so, the implementation counts the mandatory PGN tags.
+     * order to do so, the implementation counts the mandatory PGN tags. If the file has a valid index saved by a
+     * {@link PgnIndex}, the number of games is read from the index instead, without updating it, as counted by
+     * {@link PgnIndex#countGames(Path)}. Note that the index counts only the games terminated by a result, hence the
+     * two counts differ when the file ends with an incomplete game.
      *
      * @return the number of games in PGN file
      * @throws IOException in case of error reading the PGN file
      */
     public long countGamesInPgnFile() throws IOException {
-        return Files.lines(Paths.get(this.fileName))
-                .filter(s -> s.startsWith("[Event "))
-                .count();
+        Path path = Paths.get(this.fileName);
+        int count = PgnIndex.countGames(path);
+        if (count >= 0) {
+            return count;
+        }
+        try (Stream<String> lines = Files.lines(path)) {
+            return lines.filter(s -> s.startsWith("[Event ")).count();
+        }
     }
 
     /**
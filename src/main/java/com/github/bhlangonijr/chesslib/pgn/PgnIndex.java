@@ -0,0 +1,576 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.pgn;
+
+import com.github.bhlangonijr.chesslib.game.Game;
+import com.github.bhlangonijr.chesslib.pgn.PgnTokenizer.TokenType;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * A persistent index of the games of a Portable Game Notation (PGN) file, allowing random access to any game.
+ * <p>
+ * The index records the offset and length of every game, along with the values of its main tag pairs, and is saved
+ * into a sidecar file next to the PGN file, so that it is built only once. The entries are stored as fixed-width
+ * records, hence opening the index reads only its header, and any entry is read from the index file on demand. Any
+ * game, or range of games, can then be fetched in constant time, reading only its bytes from the PGN file. When the
+ * PGN file has been appended to since the index was saved, only the new games are indexed, while the index is rebuilt
+ * from scratch if the indexed portion of the file has changed.
+ * <p>
+ * Only the games terminated by a result are indexed, so that a game still being written at the end of the file is
+ * indexed once it is complete. The entries and the games are read with positioned reads, hence the index can be
+ * safely used by multiple threads, as long as it is not being updated.
+ */
+public class PgnIndex implements AutoCloseable {
+
+    /**
+     * The extension appended to the name of the PGN file to name its index file.
+     */
+    public static final String INDEX_FILE_EXTENSION = ".idx";
+
+    /*
+     * the index file is made of a header, followed by a fixed-width record per game and by a table of the tag values
+     * of the games:
+     * - header: magic, version, indexed length, fingerprint, number of games, unused (4 + 4 + 8 + 8 + 4 + 4 bytes)
+     * - record: offset, length, white Elo, black Elo, offset and length of the tag values in the table
+     *   (8 + 4 + 4 + 4 + 8 + 4 bytes)
+     * - tag values: event, date, white, black, result and ECO of each game, as modified UTF-8
+     */
+    private static final int MAGIC = 0x50474e49;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 32;
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final Path indexPath;
+    private final FileChannel channel;
+    private FileChannel indexChannel;
+    private int size;
+    private long indexedLength;
+    private long fingerprint;
+
+    private PgnIndex(Path path, Path indexPath) throws IOException {
+        this.path = path;
+        this.indexPath = indexPath;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Opens the index of the given PGN file, stored in the file with the same name plus the
+     * {@link PgnIndex#INDEX_FILE_EXTENSION} extension. The index is built, or updated, if necessary.
+     *
+     * @param filename the PGN filename
+     * @return the index of the PGN file
+     * @throws IOException in case of error accessing the PGN file or its index
+     */
+    public static PgnIndex open(String filename) throws IOException {
+        return open(Paths.get(filename));
+    }
+
+    /**
+     * Opens the index of the given PGN file, stored in the file with the same name plus the
+     * {@link PgnIndex#INDEX_FILE_EXTENSION} extension. The index is built, or updated, if necessary.
+     *
+     * @param path the path of the PGN file
+     * @return the index of the PGN file
+     * @throws IOException in case of error accessing the PGN file or its index
+     */
+    public static PgnIndex open(Path path) throws IOException {
+        return open(path, getIndexPath(path));
+    }
+
+    /**
+     * Opens the index of the given PGN file, stored in the given index file. The index is built, or updated, if
+     * necessary.
+     *
+     * @param path      the path of the PGN file
+     * @param indexPath the path of the index file
+     * @return the index of the PGN file
+     * @throws IOException in case of error accessing the PGN file or its index
+     */
+    public static PgnIndex open(Path path, Path indexPath) throws IOException {
+        PgnIndex index = new PgnIndex(path, indexPath);
+        try {
+            index.read();
+            index.update();
+        } catch (IOException | RuntimeException e) {
+            index.close();
+            throw e;
+        }
+        return index;
+    }
+
+    /**
+     * Counts the games of the given PGN file using its saved index, stored in the file with the same name plus the
+     * {@link PgnIndex#INDEX_FILE_EXTENSION} extension, without building or updating the index. The number of games is
+     * read from the header of the index, while the games appended to the file since it was last indexed, if any, are
+     * counted by scanning only the new portion of the file.
+     *
+     * @param path the path of the PGN file
+     * @return the number of games terminated by a result in the file, or {@code -1} if the file has no saved index,
+     * or its index is no longer valid
+     * @throws IOException in case of error accessing the PGN file or its index
+     */
+    public static int countGames(Path path) throws IOException {
+        try (PgnIndex index = new PgnIndex(path, getIndexPath(path))) {
+            index.read();
+            if (!index.isCurrent(new CRC32C())) {
+                return -1;
+            }
+            return index.size + index.countGames(index.indexedLength);
+        }
+    }
+
+    /**
+     * Returns the path of the default index file of the given PGN file.
+     *
+     * @param path the path of the PGN file
+     * @return the path of its index file
+     */
+    public static Path getIndexPath(Path path) {
+        return path.resolveSibling(path.getFileName() + INDEX_FILE_EXTENSION);
+    }
+
+    /**
+     * Updates the index with the games appended to the PGN file since it was last indexed, and saves it. The index is
+     * rebuilt from scratch if the indexed portion of the file has changed in the meantime.
+     *
+     * @return the number of games added to the index
+     * @throws IOException in case of error accessing the PGN file or its index
+     */
+    public int update() throws IOException {
+        Checksum checksum = new CRC32C();
+        boolean current = isCurrent(checksum);
+        if (!current) {
+            size = 0;
+            indexedLength = 0;
+            checksum.reset();
+        }
+        return write(checksum, current);
+    }
+
+    /**
+     * Returns the number of games in the index.
+     *
+     * @return the number of games
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of the PGN file covered by the index, that is the end of the last indexed game.
+     *
+     * @return the number of indexed bytes
+     */
+    public long getIndexedLength() {
+        return indexedLength;
+    }
+
+    /**
+     * Returns the path of the file the index is stored in.
+     *
+     * @return the path of the index file
+     */
+    public Path getIndexPath() {
+        return indexPath;
+    }
+
+    /**
+     * Returns the entry of the game at the given position in the file, read from the index file.
+     *
+     * @param index the position of the game, starting from zero
+     * @return the entry of the game
+     * @throws IOException               in case of error reading the index file
+     * @throws IndexOutOfBoundsException if the position is out of range
+     */
+    public PgnIndexEntry getEntry(int index) throws IOException {
+        ByteBuffer record = readRecord(Objects.checkIndex(index, size));
+        long offset = record.getLong();
+        int length = record.getInt();
+        int whiteElo = record.getInt();
+        int blackElo = record.getInt();
+        long tagsOffset = record.getLong();
+        ByteBuffer tags = ByteBuffer.allocate(record.getInt());
+        readFully(indexChannel, tags, HEADER_SIZE + (long) size * RECORD_SIZE + tagsOffset);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(tags.array()));
+        return new PgnIndexEntry(offset, length, in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                in.readUTF(), in.readUTF(), whiteElo, blackElo);
+    }
+
+    /**
+     * Returns the entries of all the games in the index, in the order they appear in the file, read from the index
+     * file.
+     *
+     * @return the entries of the games
+     * @throws IOException in case of error reading the index file
+     */
+    public List<PgnIndexEntry> getEntries() throws IOException {
+        List<PgnIndexEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(getEntry(i));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the PGN text of the game at the given position in the file, read from the file.
+     *
+     * @param index the position of the game, starting from zero
+     * @return the PGN text of the game
+     * @throws IOException in case of error reading the file
+     */
+    public String getGameText(int index) throws IOException {
+        return getGamesText(index, index + 1);
+    }
+
+    /**
+     * Returns the game at the given position in the file, read from the file and fully loaded.
+     *
+     * @param index the position of the game, starting from zero
+     * @return the game
+     * @throws IOException  in case of error reading the file
+     * @throws PgnException in case of error parsing the game
+     */
+    public Game getGame(int index) throws IOException {
+        return getGames(index, index + 1).get(0);
+    }
+
+    /**
+     * Returns the games in the given range of positions in the file, read from the file with a single read and fully
+     * loaded.
+     *
+     * @param fromIndex the position of the first game, inclusive
+     * @param toIndex   the position of the last game, exclusive
+     * @return the games in the range
+     * @throws IOException  in case of error reading the file
+     * @throws PgnException in case of error parsing a game
+     */
+    public List<Game> getGames(int fromIndex, int toIndex) throws IOException {
+        Iterator<String> lines = getGamesText(fromIndex, toIndex).lines().iterator();
+        List<Game> games = new ArrayList<>(toIndex - fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) {
+            games.add(GameLoader.loadNextGame(lines));
+        }
+        return games;
+    }
+
+    /**
+     * Closes the PGN file and the index file, and releases any system resources associated with them.
+     *
+     * @throws IOException in case of error closing the files
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+        }
+    }
+
+    private String getGamesText(int fromIndex, int toIndex) throws IOException {
+        if (fromIndex < 0 || toIndex > size || fromIndex >= toIndex) {
+            throw new IndexOutOfBoundsException("Invalid range of games [" + fromIndex + ", " + toIndex + ") of " +
+                    size);
+        }
+        long start = readRecord(fromIndex).getLong();
+        ByteBuffer last = readRecord(toIndex - 1);
+        long end = last.getLong() + last.getInt();
+        if (end - start > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Range of games too large: " + (end - start) + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        int read = readFully(channel, buffer, start);
+        if (read < buffer.capacity()) {
+            throw new IOException("Unexpected end of PGN file " + path + " at offset " + (start + read));
+        }
+        return new String(buffer.array(), 0, read, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer readRecord(int index) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        if (readFully(indexChannel, record, HEADER_SIZE + (long) index * RECORD_SIZE) < RECORD_SIZE) {
+            throw new IOException("Unexpected end of index file " + indexPath + " at record " + index);
+        }
+        return record.flip();
+    }
+
+    /*
+     * the indexed portion of the file is unchanged if the file has not been truncated and its fingerprint matches. The
+     * checksum is left updated with the indexed bytes, so that it can be extended with the bytes indexed later
+     */
+    private boolean isCurrent(Checksum checksum) throws IOException {
+        return indexChannel != null && channel.size() >= indexedLength &&
+                updateFingerprint(checksum, 0, indexedLength) == fingerprint;
+    }
+
+    /*
+     * counts the games terminated by a result from the given offset, which is either the start of the file or the end
+     * of a game
+     */
+    private int countGames(long offset) throws IOException {
+        if (channel.size() <= offset) {
+            return 0;
+        }
+        int count = 0;
+        try (PgnTokenizer tokenizer = new PgnTokenizer(FileChannel.open(path, StandardOpenOption.READ), offset)) {
+            for (TokenType type = tokenizer.next(); type != TokenType.END_OF_FILE; type = tokenizer.next()) {
+                if (type == TokenType.RESULT) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /*
+     * indexes the games from the given offset, which is either the start of the file or the end of a game, writing
+     * their records and their tag values, the latter placed from the given offset of the table
+     */
+    private int scan(long offset, DataOutputStream records, DataOutputStream tags, long tagsOffset)
+            throws IOException {
+        ByteArrayOutputStream values = new ByteArrayOutputStream();
+        DataOutputStream valuesOut = new DataOutputStream(values);
+        int count = 0;
+        try (PgnTokenizer tokenizer = new PgnTokenizer(FileChannel.open(path, StandardOpenOption.READ), offset)) {
+            long start = -1;
+            String event = "";
+            String date = "";
+            String white = "";
+            String black = "";
+            String result = "";
+            String eco = "";
+            int whiteElo = 0;
+            int blackElo = 0;
+            for (TokenType type = tokenizer.next(); type != TokenType.END_OF_FILE; type = tokenizer.next()) {
+                if (start < 0) {
+                    start = tokenizer.getOffset();
+                }
+                if (type == TokenType.TAG) {
+                    if (tokenizer.isTag("Event")) {
+                        event = tokenizer.getTagValue();
+                    } else if (tokenizer.isTag("Date")) {
+                        date = tokenizer.getTagValue();
+                    } else if (tokenizer.isTag("White")) {
+                        white = tokenizer.getTagValue();
+                    } else if (tokenizer.isTag("Black")) {
+                        black = tokenizer.getTagValue();
+                    } else if (tokenizer.isTag("Result")) {
+                        result = tokenizer.getTagValue();
+                    } else if (tokenizer.isTag("ECO")) {
+                        eco = tokenizer.getTagValue();
+                    } else if (tokenizer.isTag("WhiteElo")) {
+                        whiteElo = tokenizer.getTagValueAsInt(0);
+                    } else if (tokenizer.isTag("BlackElo")) {
+                        blackElo = tokenizer.getTagValueAsInt(0);
+                    }
+                } else if (type == TokenType.RESULT) {
+                    long end = tokenizer.getOffset() + tokenizer.getLength();
+                    if (result.isEmpty()) {
+                        result = tokenizer.getText();
+                    }
+                    values.reset();
+                    writeTag(valuesOut, event);
+                    writeTag(valuesOut, date);
+                    writeTag(valuesOut, white);
+                    writeTag(valuesOut, black);
+                    writeTag(valuesOut, result);
+                    writeTag(valuesOut, eco);
+                    records.writeLong(start);
+                    records.writeInt((int) (end - start));
+                    records.writeInt(whiteElo);
+                    records.writeInt(blackElo);
+                    records.writeLong(tagsOffset);
+                    records.writeInt(values.size());
+                    values.writeTo(tags);
+                    tagsOffset += values.size();
+                    count++;
+                    indexedLength = end;
+                    start = -1;
+                    event = date = white = black = result = eco = "";
+                    whiteElo = blackElo = 0;
+                }
+            }
+        }
+        return count;
+    }
+
+    /*
+     * the fingerprint of the indexed portion of the file is the checksum of all its bytes combined with its length, so
+     * that any change to the indexed games is detected. The checksum is updated with the bytes in the given range only,
+     * hence the fingerprint of a portion that has been extended is computed reading just the new bytes
+     */
+    private long updateFingerprint(Checksum checksum, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKSUM_BUFFER_SIZE);
+        long position = from;
+        while (position < to) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+            int read = readFully(channel, buffer, position);
+            if (read == 0) {
+                throw new IOException("Unexpected end of PGN file " + path + " at offset " + position);
+            }
+            checksum.update(buffer.array(), 0, read);
+            position += read;
+        }
+        return checksum.getValue() ^ to << 32;
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position() - start;
+    }
+
+    private static void transferFully(FileChannel source, long position, long count, FileChannel target)
+            throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            long n = source.transferTo(position + transferred, count - transferred, target);
+            if (n <= 0) {
+                throw new IOException("Unexpected end of file at offset " + (position + transferred));
+            }
+            transferred += n;
+        }
+    }
+
+    private static void transferFully(Path source, FileChannel target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            transferFully(in, 0, in.size(), target);
+        }
+    }
+
+    /*
+     * reads the header of the index, leaving the index empty if the index file is missing, truncated or corrupted, so
+     * that it is rebuilt from scratch
+     */
+    private void read() throws IOException {
+        try {
+            indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (readFully(indexChannel, header, 0) == HEADER_SIZE) {
+            header.flip();
+            if (header.getInt() == MAGIC && header.getInt() == VERSION) {
+                long length = header.getLong();
+                long print = header.getLong();
+                int count = header.getInt();
+                if (count >= 0 && indexChannel.size() >= HEADER_SIZE + (long) count * RECORD_SIZE) {
+                    indexedLength = length;
+                    fingerprint = print;
+                    size = count;
+                    return;
+                }
+            }
+        }
+        indexChannel.close();
+        indexChannel = null;
+    }
+
+    /*
+     * the new games are indexed into temporary files first, and nothing is written if none is found while the index is
+     * current. Otherwise, the index is written to a temporary file, so that a failed write never leaves a corrupted
+     * index behind: the records and the tag values of the games already indexed are copied as they are, followed by
+     * those of the new games
+     */
+    private int write(Checksum checksum, boolean current) throws IOException {
+        Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        Path recordsTemp = indexPath.resolveSibling(indexPath.getFileName() + ".records.tmp");
+        Path tagsTemp = indexPath.resolveSibling(indexPath.getFileName() + ".tags.tmp");
+        long recordsLength = (long) size * RECORD_SIZE;
+        long tagsLength = size > 0 ? indexChannel.size() - HEADER_SIZE - recordsLength : 0;
+        long offset = indexedLength;
+        int count;
+        try {
+            try (DataOutputStream records = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(recordsTemp)));
+                 DataOutputStream tags = new DataOutputStream(new BufferedOutputStream(
+                         Files.newOutputStream(tagsTemp)))) {
+                count = scan(offset, records, tags, tagsLength);
+            }
+            if (count == 0 && current) {
+                return 0;
+            }
+            fingerprint = updateFingerprint(checksum, offset, indexedLength);
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(indexedLength).putLong(fingerprint)
+                        .putInt(size + count).putInt(0);
+                header.flip();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                if (size > 0) {
+                    transferFully(indexChannel, HEADER_SIZE, recordsLength, out);
+                }
+                transferFully(recordsTemp, out);
+                if (size > 0) {
+                    transferFully(indexChannel, HEADER_SIZE + recordsLength, tagsLength, out);
+                }
+                transferFully(tagsTemp, out);
+            }
+        } finally {
+            Files.deleteIfExists(recordsTemp);
+            Files.deleteIfExists(tagsTemp);
+        }
+        if (indexChannel != null) {
+            indexChannel.close();
+            indexChannel = null;
+        }
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING);
+        indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ);
+        size += count;
+        return count;
+    }
+
+    /*
+     * tag values are stored as modified UTF-8, which is limited to 65535 bytes, far beyond any sensible tag value
+     */
+    private static void writeTag(DataOutputStream out, String value) throws IOException {
+        out.writeUTF(value.length() > 16384 ? value.substring(0, 16384) : value);
+    }
+}
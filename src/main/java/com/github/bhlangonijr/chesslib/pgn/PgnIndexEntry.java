@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.pgn;
+
+/**
+ * An entry of a {@link PgnIndex}, describing where a game is stored in a Portable Game Notation (PGN) file, along with
+ * the values of its main tag pairs. The tags missing from the game are empty strings, and the missing Elo ratings are
+ * zero.
+ */
+public class PgnIndexEntry {
+
+    private final long offset;
+    private final int length;
+    private final String event;
+    private final String date;
+    private final String white;
+    private final String black;
+    private final String result;
+    private final String eco;
+    private final int whiteElo;
+    private final int blackElo;
+
+    /**
+     * Constructs a new PGN index entry.
+     *
+     * @param offset   the offset of the game in the file
+     * @param length   the length of the game, in bytes
+     * @param event    the value of the {@code Event} tag
+     * @param date     the value of the {@code Date} tag
+     * @param white    the value of the {@code White} tag
+     * @param black    the value of the {@code Black} tag
+     * @param result   the value of the {@code Result} tag
+     * @param eco      the value of the {@code ECO} tag
+     * @param whiteElo the value of the {@code WhiteElo} tag
+     * @param blackElo the value of the {@code BlackElo} tag
+     */
+    public PgnIndexEntry(long offset, int length, String event, String date, String white, String black,
+                         String result, String eco, int whiteElo, int blackElo) {
+        this.offset = offset;
+        this.length = length;
+        this.event = event;
+        this.date = date;
+        this.white = white;
+        this.black = black;
+        this.result = result;
+        this.eco = eco;
+        this.whiteElo = whiteElo;
+        this.blackElo = blackElo;
+    }
+
+    /**
+     * Returns the offset of the first byte of the game in the file.
+     *
+     * @return the offset of the game
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the length of the game, in bytes, up to and including its result.
+     *
+     * @return the length of the game
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the name of the event the game was played in.
+     *
+     * @return the event
+     */
+    public String getEvent() {
+        return event;
+    }
+
+    /**
+     * Returns the date the game was played on.
+     *
+     * @return the date
+     */
+    public String getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the name of the white player.
+     *
+     * @return the white player
+     */
+    public String getWhite() {
+        return white;
+    }
+
+    /**
+     * Returns the name of the black player.
+     *
+     * @return the black player
+     */
+    public String getBlack() {
+        return black;
+    }
+
+    /**
+     * Returns the result of the game, in its PGN notation.
+     *
+     * @return the result
+     */
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the ECO code of the opening of the game.
+     *
+     * @return the ECO code
+     */
+    public String getEco() {
+        return eco;
+    }
+
+    /**
+     * Returns the Elo rating of the white player.
+     *
+     * @return the Elo rating of the white player
+     */
+    public int getWhiteElo() {
+        return whiteElo;
+    }
+
+    /**
+     * Returns the Elo rating of the black player.
+     *
+     * @return the Elo rating of the black player
+     */
+    public int getBlackElo() {
+        return blackElo;
+    }
+
+    /**
+     * Returns a string representation of this entry.
+     *
+     * @return a string representation of the entry
+     */
+    @Override
+    public String toString() {
+        return String.format("%s - %s %s (%s, %s) at %d+%d", white, black, result, event, date, offset, length);
+    }
+}
@@ -17,6 +17,8 @@
 package com.github.bhlangonijr.chesslib.pgn;
 
 import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Predicate;
 
 import com.github.bhlangonijr.chesslib.game.Game;
 import com.github.bhlangonijr.chesslib.util.LargeFile;
@@ -24,11 +26,18 @@ import com.github.bhlangonijr.chesslib.util.LargeFile;
 /**
  * A Portable Game Notation (PGN) iterator, used to navigate the games contained in PGN file.
  * <p>
- * The iterator permits iterating over large PGN files without piling up every game into the memory.
+ * The iterator permits iterating over large PGN files without piling up every game into the memory. Optionally, the
+ * iterator can parse only the tag pairs of the games, deferring the replay of their moves to when
+ * {@link Game#loadMoveText()} is invoked, which is much faster when only the metadata of the games is needed. A filter
+ * on the tag pairs can also be provided, so that the games not matching it are skipped right after their tag section
+ * is read, without creating any of their objects nor parsing their moves.
  */
 public class PgnIterator implements Iterable<Game>, AutoCloseable {
 
+    private final LargeFile file;
     private final Iterator<String> pgnLines;
+    private final Predicate<Map<String, String>> filter;
+    private final boolean loadMoveText;
 
     private Game game;
 
@@ -43,6 +52,37 @@ public class PgnIterator implements Iterable<Game>, AutoCloseable {
         this(new LargeFile(filename));
     }
 
+    /**
+     * Constructs a new PGN iterator from the filename of the PGN file, optionally parsing only the tag pairs of the
+     * games.
+     *
+     * @param filename     the PGN filename
+     * @param loadMoveText whether to replay the moves of the games, or to parse only their tag pairs
+     * @throws Exception in case the PGN file can not be accessed
+     * @see GameLoader#loadNextGame(Iterator, boolean)
+     */
+    public PgnIterator(String filename, boolean loadMoveText) throws Exception {
+
+        this(new LargeFile(filename), null, loadMoveText);
+    }
+
+    /**
+     * Constructs a new PGN iterator from the filename of the PGN file, iterating only over the games whose tag pairs
+     * match a filter.
+     *
+     * @param filename     the PGN filename
+     * @param filter       the filter the tag pairs of the games must match, given as a map from the names of the tags,
+     *                     compared ignoring case, to their values
+     * @param loadMoveText whether to replay the moves of the games, or to parse only their tag pairs
+     * @throws Exception in case the PGN file can not be accessed
+     * @see GameLoader#loadNextGame(Iterator, Predicate, boolean)
+     */
+    public PgnIterator(String filename, Predicate<Map<String, String>> filter, boolean loadMoveText)
+            throws Exception {
+
+        this(new LargeFile(filename), filter, loadMoveText);
+    }
+
     /**
      * Constructs a new PGN iterator from the PGN file.
      *
@@ -50,8 +90,12 @@ public class PgnIterator implements Iterable<Game>, AutoCloseable {
      */
     public PgnIterator(LargeFile file) {
 
-        this.pgnLines = file.iterator();
-        loadNextGame();
+        this(file, null, true);
+    }
+
+    private PgnIterator(LargeFile file, Predicate<Map<String, String>> filter, boolean loadMoveText) {
+
+        this(file, file.iterator(), filter, loadMoveText);
     }
 
     /**
@@ -61,8 +105,7 @@ public class PgnIterator implements Iterable<Game>, AutoCloseable {
      */
     public PgnIterator(Iterable<String> pgnLines) {
 
-        this.pgnLines = pgnLines.iterator();
-        loadNextGame();
+        this(pgnLines.iterator(), true);
     }
 
     /**
@@ -72,7 +115,44 @@ public class PgnIterator implements Iterable<Game>, AutoCloseable {
      */
     public PgnIterator(Iterator<String> pgnLines) {
 
+        this(pgnLines, true);
+    }
+
+    /**
+     * Constructs a new PGN iterator from another iterator over the lines of the PGN file, optionally parsing only the
+     * tag pairs of the games.
+     *
+     * @param pgnLines     an iterator over PGN lines
+     * @param loadMoveText whether to replay the moves of the games, or to parse only their tag pairs
+     * @see GameLoader#loadNextGame(Iterator, boolean)
+     */
+    public PgnIterator(Iterator<String> pgnLines, boolean loadMoveText) {
+
+        this(null, pgnLines, null, loadMoveText);
+    }
+
+    /**
+     * Constructs a new PGN iterator from another iterator over the lines of the PGN file, iterating only over the games
+     * whose tag pairs match a filter.
+     *
+     * @param pgnLines     an iterator over PGN lines
+     * @param filter       the filter the tag pairs of the games must match, given as a map from the names of the tags,
+     *                     compared ignoring case, to their values
+     * @param loadMoveText whether to replay the moves of the games, or to parse only their tag pairs
+     * @see GameLoader#loadNextGame(Iterator, Predicate, boolean)
+     */
+    public PgnIterator(Iterator<String> pgnLines, Predicate<Map<String, String>> filter, boolean loadMoveText) {
+
+        this(null, pgnLines, filter, loadMoveText);
+    }
+
+    private PgnIterator(LargeFile file, Iterator<String> pgnLines, Predicate<Map<String, String>> filter,
+                        boolean loadMoveText) {
+
+        this.file = file;
         this.pgnLines = pgnLines;
+        this.filter = filter;
+        this.loadMoveText = loadMoveText;
         loadNextGame();
     }
 
@@ -92,14 +172,15 @@ public class PgnIterator implements Iterable<Game>, AutoCloseable {
     @Override
     public void close() throws Exception {
 
-        if (pgnLines instanceof LargeFile) {
-            ((LargeFile) (pgnLines)).close();
+        if (file != null) {
+            file.close();
         }
     }
 
     private void loadNextGame() {
 
-        game = GameLoader.loadNextGame(pgnLines);
+        game = filter == null ? GameLoader.loadNextGame(pgnLines, loadMoveText) :
+                GameLoader.loadNextGame(pgnLines, filter, loadMoveText);
     }
 
     private class GameIterator implements Iterator<Game> {
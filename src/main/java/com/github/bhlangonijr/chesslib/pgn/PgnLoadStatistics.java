@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.pgn;
+
+/**
+ * The statistics of the loading of a Portable Game Notation (PGN) file: the number of games and bytes read, and the
+ * throughput of the loading.
+ */
+public class PgnLoadStatistics {
+
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+    private final long games;
+    private final long bytes;
+    private final int chunks;
+    private final long timeMillis;
+
+    /**
+     * Constructs new PGN loading statistics.
+     *
+     * @param games      the number of games loaded
+     * @param bytes      the number of bytes read
+     * @param chunks     the number of chunks the file has been split into
+     * @param timeMillis the time spent loading the file, in milliseconds
+     */
+    public PgnLoadStatistics(long games, long bytes, int chunks, long timeMillis) {
+        this.games = games;
+        this.bytes = bytes;
+        this.chunks = chunks;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Returns the number of games loaded.
+     *
+     * @return the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of bytes read.
+     *
+     * @return the number of bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of chunks the file has been split into.
+     *
+     * @return the number of chunks
+     */
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Returns the time spent loading the file, in milliseconds.
+     *
+     * @return the loading time
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns the number of games loaded per second.
+     *
+     * @return the games per second
+     */
+    public double getGamesPerSecond() {
+        return games * 1000.0 / Math.max(1, timeMillis);
+    }
+
+    /**
+     * Returns the number of megabytes read per second.
+     *
+     * @return the megabytes per second
+     */
+    public double getMegabytesPerSecond() {
+        return bytes / BYTES_PER_MEGABYTE * 1000.0 / Math.max(1, timeMillis);
+    }
+
+    /**
+     * Returns a string representation of these statistics.
+     *
+     * @return a string representation of the statistics
+     */
+    @Override
+    public String toString() {
+        return String.format("%d games, %d bytes, %d chunks in %d ms (%.1f games/s, %.2f MB/s)",
+                games, bytes, chunks, timeMillis, getGamesPerSecond(), getMegabytesPerSecond());
+    }
+}
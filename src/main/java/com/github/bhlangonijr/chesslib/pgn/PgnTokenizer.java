@@ -0,0 +1,592 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A tokenizer of Portable Game Notation (PGN) files, reading the tokens of the games directly from the bytes of a
+ * memory-mapped file in a single pass.
+ * <p>
+ * The tokenizer does not allocate any object while scanning the file: the type of the current token is returned by
+ * {@link PgnTokenizer#next()}, and its contents are materialized as strings only on request, using methods such as
+ * {@link PgnTokenizer#getText()} or {@link PgnTokenizer#getTagValue()}. Some of the contents can be inspected without
+ * allocating any string at all, e.g. using {@link PgnTokenizer#isTag(String)} or {@link PgnTokenizer#getNag()}.
+ * <p>
+ * The file is mapped in windows of a fixed size, so that files of any size can be read. The text of tags and comments
+ * is decoded as UTF-8, while the other tokens are plain ASCII.
+ * <p>
+ * A typical usage is as follows:
+ * <pre>{@code
+ * try (PgnTokenizer tokenizer = new PgnTokenizer("games.pgn")) {
+ *     for (TokenType type = tokenizer.next(); type != TokenType.END_OF_FILE; type = tokenizer.next()) {
+ *         if (type == TokenType.TAG && tokenizer.isTag("White")) {
+ *             System.out.println(tokenizer.getTagValue());
+ *         }
+ *     }
+ * }
+ * }</pre>
+ */
+public class PgnTokenizer implements AutoCloseable {
+
+    /**
+     * The types of the tokens of a PGN file.
+     */
+    public enum TokenType {
+        /**
+         * A tag pair, e.g. {@code [White "Carlsen, Magnus"]}.
+         */
+        TAG,
+        /**
+         * A move number indication, e.g. {@code 12.} or {@code 12...}.
+         */
+        MOVE_NUMBER,
+        /**
+         * A move in Standard Algebraic Notation (SAN), possibly followed by its check and annotation symbols, e.g.
+         * {@code Nxe5+!}.
+         */
+        SAN,
+        /**
+         * A Numeric Annotation Glyph (NAG), e.g. {@code $1}.
+         */
+        NAG,
+        /**
+         * A comment, either enclosed in braces or extending to the end of the line after a semicolon.
+         */
+        COMMENT,
+        /**
+         * The start of a Recursive Annotation Variation (RAV), that is an opening parenthesis.
+         */
+        VARIATION_START,
+        /**
+         * The end of a Recursive Annotation Variation (RAV), that is a closing parenthesis.
+         */
+        VARIATION_END,
+        /**
+         * A game termination marker, that is one of {@code 1-0}, {@code 0-1}, {@code 1/2-1/2} or {@code *}.
+         */
+        RESULT,
+        /**
+         * The end of the file, returned when no tokens are left.
+         */
+        END_OF_FILE
+    }
+
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int EOF = -1;
+
+    private final FileChannel channel;
+    private final long size;
+    private int windowSize;
+    private ByteBuffer window;
+    private long windowOffset;
+    private int position;
+    private TokenType type;
+    // the bounds of the current token and of its parts, relative to the start of the token
+    private int tokenStart;
+    private int tokenLength;
+    private int contentStart;
+    private int contentLength;
+    private int valueStart;
+    private int valueLength;
+    private boolean valueEscaped;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Constructs a new tokenizer of the given PGN file.
+     *
+     * @param filename the PGN filename
+     * @throws IOException in case the file can not be accessed
+     */
+    public PgnTokenizer(String filename) throws IOException {
+        this(Paths.get(filename));
+    }
+
+    /**
+     * Constructs a new tokenizer of the given PGN file.
+     *
+     * @param path the path of the PGN file
+     * @throws IOException in case the file can not be accessed
+     */
+    public PgnTokenizer(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), 0);
+    }
+
+    /**
+     * Constructs a new tokenizer of a portion of the given PGN file, starting at the given offset, mapping the file
+     * into memory with the default window size. The offset is expected to be at the start of a token, e.g. at the
+     * start of a game. The channel is closed when the tokenizer is closed.
+     *
+     * @param channel the channel of the PGN file
+     * @param offset  the offset in the file to start tokenizing from
+     * @throws IOException in case the file can not be accessed
+     */
+    public PgnTokenizer(FileChannel channel, long offset) throws IOException {
+        this(channel, offset, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs a new tokenizer of a portion of the given PGN file, starting at the given offset. The offset is
+     * expected to be at the start of a token, e.g. at the start of a game. The channel is closed when the tokenizer is
+     * closed.
+     *
+     * @param channel    the channel of the PGN file
+     * @param offset     the offset in the file to start tokenizing from
+     * @param windowSize the size of the windows of the file mapped into memory
+     * @throws IOException in case the file can not be accessed
+     */
+    public PgnTokenizer(FileChannel channel, long offset, int windowSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        map(offset);
+        skipByteOrderMark();
+    }
+
+    /**
+     * Constructs a new tokenizer of the PGN contents held in a buffer, from its current position to its limit.
+     *
+     * @param buffer the buffer holding the PGN contents
+     */
+    public PgnTokenizer(ByteBuffer buffer) {
+        this.channel = null;
+        this.window = buffer.slice();
+        this.size = window.limit();
+        this.windowSize = window.limit();
+        skipByteOrderMark();
+    }
+
+    /**
+     * Constructs a new tokenizer of the PGN contents of a string.
+     *
+     * @param pgn the PGN contents
+     * @return the tokenizer of the PGN contents
+     */
+    public static PgnTokenizer fromString(String pgn) {
+        return new PgnTokenizer(ByteBuffer.wrap(pgn.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Advances to the next token and returns its type.
+     *
+     * @return the type of the next token, or {@link TokenType#END_OF_FILE} if no tokens are left
+     * @throws IOException in case of error reading the file
+     */
+    public TokenType next() throws IOException {
+        tokenStart = position;
+        int c = peek(0);
+        while (isWhitespace(c)) {
+            tokenStart++;
+            c = peek(0);
+        }
+        contentStart = 0;
+        switch (c) {
+            case EOF:
+                tokenLength = 0;
+                contentLength = 0;
+                type = TokenType.END_OF_FILE;
+                break;
+            case '[':
+                scanTag();
+                break;
+            case '{':
+                scanUntil('}');
+                break;
+            case ';':
+                scanUntil('\n');
+                break;
+            case '(':
+                scanSingle(TokenType.VARIATION_START);
+                break;
+            case ')':
+                scanSingle(TokenType.VARIATION_END);
+                break;
+            case '*':
+                scanSingle(TokenType.RESULT);
+                break;
+            case '$':
+                scanNag();
+                break;
+            default:
+                if (c >= '0' && c <= '9') {
+                    scanNumber();
+                } else {
+                    scanSymbol(TokenType.SAN, 0);
+                }
+                break;
+        }
+        position = tokenStart + tokenLength;
+        return type;
+    }
+
+    /**
+     * Returns the type of the current token.
+     *
+     * @return the type of the current token, or {@code null} if {@link PgnTokenizer#next()} was never invoked
+     */
+    public TokenType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the offset in the file of the first byte of the current token.
+     *
+     * @return the offset of the current token
+     */
+    public long getOffset() {
+        return windowOffset + tokenStart;
+    }
+
+    /**
+     * Returns the length of the current token, in bytes.
+     *
+     * @return the length of the current token
+     */
+    public int getLength() {
+        return tokenLength;
+    }
+
+    /**
+     * Returns the text of the current token. For tags, it is the whole tag pair, including the brackets, while for
+     * comments it is the content of the comment, excluding the braces or the semicolon.
+     *
+     * @return the text of the current token
+     */
+    public String getText() {
+        if (type == TokenType.TAG) {
+            return decode(0, tokenLength, false);
+        }
+        return decode(contentStart, contentLength, false);
+    }
+
+    /**
+     * Checks whether the text of the current token equals the given text, without allocating any string. For tags
+     * and comments, the text is the one returned by {@link PgnTokenizer#getText()}.
+     *
+     * @param text the text to compare, made of ASCII characters
+     * @return {@code true} if the text of the current token equals the given text
+     */
+    public boolean textEquals(String text) {
+        if (type == TokenType.TAG) {
+            return regionEquals(0, tokenLength, text, false);
+        }
+        return regionEquals(contentStart, contentLength, text, false);
+    }
+
+    /**
+     * Returns the name of the current tag.
+     *
+     * @return the name of the tag
+     * @throws IllegalStateException if the current token is not a tag
+     */
+    public String getTagName() {
+        checkTag();
+        return decode(contentStart, contentLength, false);
+    }
+
+    /**
+     * Returns the value of the current tag, with the escaped quotes and backslashes resolved.
+     *
+     * @return the value of the tag
+     * @throws IllegalStateException if the current token is not a tag
+     */
+    public String getTagValue() {
+        checkTag();
+        return decode(valueStart, valueLength, valueEscaped);
+    }
+
+    /**
+     * Checks whether the current token is a tag with the given name, ignoring the case of the name, without allocating
+     * any string.
+     *
+     * @param name the name of the tag, made of ASCII characters
+     * @return {@code true} if the current token is a tag with the given name
+     */
+    public boolean isTag(String name) {
+        return type == TokenType.TAG && regionEquals(contentStart, contentLength, name, true);
+    }
+
+    /**
+     * Checks whether the value of the current tag equals the given value, without allocating any string.
+     *
+     * @param value the value to compare, made of ASCII characters
+     * @return {@code true} if the value of the current tag equals the given value
+     * @throws IllegalStateException if the current token is not a tag
+     */
+    public boolean tagValueEquals(String value) {
+        checkTag();
+        return !valueEscaped && regionEquals(valueStart, valueLength, value, false);
+    }
+
+    /**
+     * Returns the value of the current tag as an integer, parsed without allocating any string.
+     *
+     * @param defaultValue the value to return if the value of the tag is not an integer
+     * @return the value of the tag as an integer, or the default value
+     * @throws IllegalStateException if the current token is not a tag
+     */
+    public int getTagValueAsInt(int defaultValue) {
+        checkTag();
+        return parseInt(valueStart, valueLength, defaultValue);
+    }
+
+    /**
+     * Returns the value of the current Numeric Annotation Glyph (NAG).
+     *
+     * @return the value of the NAG, or {@code -1} if the current token is not a NAG
+     */
+    public int getNag() {
+        return type == TokenType.NAG ? parseInt(contentStart, contentLength, -1) : -1;
+    }
+
+    /**
+     * Returns the value of the current move number indication.
+     *
+     * @return the move number, or {@code -1} if the current token is not a move number
+     */
+    public int getMoveNumber() {
+        return type == TokenType.MOVE_NUMBER ? parseInt(contentStart, contentLength, -1) : -1;
+    }
+
+    /**
+     * Closes the file and releases any system resources associated with it.
+     *
+     * @throws IOException in case of error closing the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void scanTag() throws IOException {
+        type = TokenType.TAG;
+        int i = 1;
+        while (isBlank(peek(i))) {
+            i++;
+        }
+        contentStart = i;
+        for (int c = peek(i); c != EOF && c != '"' && c != ']' && c != '\n' && !isBlank(c); c = peek(i)) {
+            i++;
+        }
+        contentLength = i - contentStart;
+        while (isBlank(peek(i))) {
+            i++;
+        }
+        valueEscaped = false;
+        if (peek(i) == '"') {
+            valueStart = ++i;
+            for (int c = peek(i); c != EOF && c != '"' && c != '\n'; c = peek(i)) {
+                if (c == '\\') {
+                    valueEscaped = true;
+                    i++;
+                }
+                i++;
+            }
+            valueLength = i - valueStart;
+        } else {
+            valueStart = i;
+            valueLength = 0;
+        }
+        for (int c = peek(i); c != EOF && c != ']' && c != '\n'; c = peek(i)) {
+            i++;
+        }
+        tokenLength = peek(i) == ']' ? i + 1 : i;
+    }
+
+    private void scanUntil(int terminator) throws IOException {
+        type = TokenType.COMMENT;
+        int i = 1;
+        contentStart = 1;
+        for (int c = peek(i); c != EOF && c != terminator; c = peek(i)) {
+            i++;
+        }
+        contentLength = i - contentStart;
+        // a comment extending to the end of the line does not include the line break
+        tokenLength = peek(i) == terminator && terminator == '}' ? i + 1 : i;
+    }
+
+    private void scanSingle(TokenType tokenType) {
+        type = tokenType;
+        tokenLength = 1;
+        contentLength = 1;
+    }
+
+    private void scanNag() throws IOException {
+        type = TokenType.NAG;
+        int i = 1;
+        while (isDigit(peek(i))) {
+            i++;
+        }
+        contentStart = 1;
+        contentLength = i - 1;
+        tokenLength = i;
+    }
+
+    /*
+     * a token starting with a digit is either a move number, a result, or a castle move written with zeros
+     */
+    private void scanNumber() throws IOException {
+        int i = 1;
+        while (isDigit(peek(i))) {
+            i++;
+        }
+        if (peek(i) == '.') {
+            type = TokenType.MOVE_NUMBER;
+            contentLength = i;
+            while (peek(i) == '.') {
+                i++;
+            }
+            tokenLength = i;
+            return;
+        }
+        scanSymbol(TokenType.SAN, i);
+        if (textEquals("1-0") || textEquals("0-1") || textEquals("1/2-1/2")) {
+            type = TokenType.RESULT;
+        } else if (i == tokenLength) {
+            // a move number with no trailing period
+            type = TokenType.MOVE_NUMBER;
+        }
+    }
+
+    private void scanSymbol(TokenType tokenType, int start) throws IOException {
+        type = tokenType;
+        int i = start;
+        for (int c = peek(i); c != EOF && !isWhitespace(c) && !isDelimiter(c); c = peek(i)) {
+            i++;
+        }
+        // a lone delimiter not starting any other token, e.g. a stray closing brace, is returned as a symbol
+        tokenLength = Math.max(i, 1);
+        contentLength = tokenLength;
+    }
+
+    private int peek(int index) throws IOException {
+        int i = tokenStart + index;
+        if (i >= window.limit()) {
+            if (channel == null || windowOffset + i >= size) {
+                return EOF;
+            }
+            remap(index);
+            i = tokenStart + index;
+        }
+        return window.get(i) & 0xFF;
+    }
+
+    /*
+     * maps a new window starting at the current token, large enough to hold the byte at the given index of the token
+     */
+    private void remap(int index) throws IOException {
+        if (index >= windowSize) {
+            windowSize = (int) Math.min(Integer.MAX_VALUE, 2L * Math.max(windowSize, index + 1));
+        }
+        map(windowOffset + tokenStart);
+    }
+
+    private void map(long offset) throws IOException {
+        long length = Math.min(windowSize, size - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.max(0, length));
+        windowOffset = offset;
+        position -= tokenStart;
+        tokenStart = 0;
+    }
+
+    private void skipByteOrderMark() {
+        if (window.limit() >= 3 && (window.get(0) & 0xFF) == 0xEF && (window.get(1) & 0xFF) == 0xBB &&
+                (window.get(2) & 0xFF) == 0xBF) {
+            position = 3;
+        }
+    }
+
+    private void checkTag() {
+        if (type != TokenType.TAG) {
+            throw new IllegalStateException("The current token is not a tag: " + type);
+        }
+    }
+
+    private String decode(int start, int length, boolean unescape) {
+        if (scratch.length < length) {
+            scratch = Arrays.copyOf(scratch, Math.max(length, 2 * scratch.length));
+        }
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = window.get(tokenStart + start + i);
+            if (unescape && b == '\\' && i + 1 < length) {
+                b = window.get(tokenStart + start + ++i);
+            }
+            scratch[n++] = b;
+        }
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private boolean regionEquals(int start, int length, String text, boolean ignoreCase) {
+        if (length != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = window.get(tokenStart + start + i);
+            int c = text.charAt(i);
+            if (b != c && (!ignoreCase || toLowerCase(b) != toLowerCase(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseInt(int start, int length, int defaultValue) {
+        if (length == 0 || length > 9) {
+            return defaultValue;
+        }
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            int b = window.get(tokenStart + start + i);
+            if (!isDigit(b)) {
+                return defaultValue;
+            }
+            value = value * 10 + b - '0';
+        }
+        return value;
+    }
+
+    private static int toLowerCase(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isBlank(int c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == '{' || c == '}' || c == '(' || c == ')' || c == '[' || c == ']' || c == ';' || c == '$' ||
+                c == '"';
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.search;
+
+import com.github.bhlangonijr.chesslib.Board;
+
+/**
+ * The static evaluation function used by a {@link Search} to score the positions at the leaves of the search tree.
+ */
+public interface Evaluator {
+
+    /**
+     * Returns the static evaluation of the position of a board, in centipawns, from the point of view of the side to
+     * move: positive values favor the side to move. The evaluation must not modify the board.
+     * <p>
+     * The absolute value of the evaluation is expected to be lower than {@link Search#MATE_BOUND}, the values above
+     * being reserved to mate scores.
+     *
+     * @param board the board of the position to evaluate
+     * @return the evaluation of the position, in centipawns
+     */
+    int evaluate(Board board);
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.search;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.game.TimeControl;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * A parallel chess search, running a {@link Search} on each of a number of threads, according to the <i>Lazy SMP</i>
+ * scheme: all the threads search the same position and share their results only through a common
+ * {@link TranspositionTable}, while the helper threads skip some of the depths of the iterative deepening, so that the
+ * threads tend to explore different parts of the tree.
+ * <p>
+ * The search is driven by the main thread, that is the caller of {@link ParallelSearch#search(Board, TimeControl)}:
+ * the limits of the time control apply to the main thread, and the helper threads are stopped as soon as the main
+ * thread completes. The best move is taken from the thread that completed the deepest iteration. The helper threads
+ * search copies of the board, obtained through {@link Board#clone()}.
+ * <p>
+ * The evaluation function is shared by all the threads, hence it must be thread-safe. The thread pool of the search
+ * must be released with {@link ParallelSearch#close()} when the search is no longer needed.
+ */
+public class ParallelSearch implements AutoCloseable {
+
+    private static final int DEFAULT_TABLE_SIZE_MB = 64;
+
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a new parallel search with the given number of threads, using a transposition table of 64 MB and the
+     * {@link SimpleEvaluator}.
+     *
+     * @param threads the number of threads, including the main thread
+     */
+    public ParallelSearch(int threads) {
+        this(threads, new TranspositionTable(DEFAULT_TABLE_SIZE_MB), new SimpleEvaluator());
+    }
+
+    /**
+     * Constructs a new parallel search with the given number of threads, using the given transposition table and
+     * evaluation function.
+     *
+     * @param threads   the number of threads, including the main thread
+     * @param table     the transposition table shared by the threads
+     * @param evaluator the evaluation function shared by the threads
+     * @throws IllegalArgumentException if the number of threads is lower than one
+     */
+    public ParallelSearch(int threads, TranspositionTable table, Evaluator evaluator) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1: " + threads);
+        }
+        this.table = table;
+        this.searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(table, evaluator);
+        }
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "chesslib-search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Returns the number of threads of the search, including the main thread.
+     *
+     * @return the number of threads
+     */
+    public int getThreadCount() {
+        return searches.length;
+    }
+
+    /**
+     * Returns the transposition table shared by the threads.
+     *
+     * @return the transposition table
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Sets a listener notified with the result of each iteration completed by the main thread.
+     *
+     * @param listener the listener of the iterations, or {@code null}
+     * @see Search#setListener(Consumer)
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        searches[0].setListener(listener);
+    }
+
+    /**
+     * Requests the search in progress to stop as soon as possible. This method can be invoked from any thread.
+     */
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    /**
+     * Searches the best move of the position of a board, within the limits defined by a time control, using all the
+     * threads of the search.
+     *
+     * @param board       the board of the position to search, restored to the same position when the search ends
+     * @param timeControl the limits of the search, see {@link Search}
+     * @return the result of the search
+     * @throws IllegalStateException if any of the helper threads fails
+     */
+    public ParallelSearchResult search(Board board, TimeControl timeControl) {
+        for (Search search : searches) {
+            search.prepare();
+        }
+        table.newSearch();
+        long startTime = System.currentTimeMillis();
+
+        List<Future<SearchResult>> helpers = new ArrayList<>(searches.length - 1);
+        for (int i = 1; i < searches.length; i++) {
+            final int threadIndex = i;
+            final Board copy = board.clone();
+            helpers.add(executor.submit(() -> searches[threadIndex].search(copy, timeControl, threadIndex)));
+        }
+        SearchResult best;
+        try {
+            best = searches[0].search(board, timeControl, 0);
+        } finally {
+            stop();
+        }
+
+        long[] threadNodes = new long[searches.length];
+        threadNodes[0] = searches[0].getNodes();
+        for (int i = 1; i < searches.length; i++) {
+            SearchResult result = waitFor(helpers.get(i - 1));
+            threadNodes[i] = searches[i].getNodes();
+            if (result != null && result.getBestMove() != PackedMove.NONE && result.getDepth() > best.getDepth()) {
+                best = result;
+            }
+        }
+        return new ParallelSearchResult(best, threadNodes, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Stops the threads of the search and releases them.
+     */
+    @Override
+    public void close() {
+        stop();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SearchResult waitFor(Future<SearchResult> helper) {
+        try {
+            return helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the search threads", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+    }
+}
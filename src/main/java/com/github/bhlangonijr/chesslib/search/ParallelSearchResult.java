@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.search;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a {@link ParallelSearch}: the result of the thread that completed the deepest iteration, along with
+ * the statistics of all the threads. The number of nodes returned by {@link ParallelSearchResult#getNodes()} is the
+ * total of all the threads.
+ */
+public class ParallelSearchResult extends SearchResult {
+
+    private final long[] threadNodes;
+
+    /**
+     * Constructs a new parallel search result.
+     *
+     * @param best        the result of the thread chosen for the best move
+     * @param threadNodes the number of nodes searched by each thread, the main thread first
+     * @param timeMillis  the time spent searching, in milliseconds
+     */
+    public ParallelSearchResult(SearchResult best, long[] threadNodes, long timeMillis) {
+        super(best.getDepth(), best.getScore(), Arrays.stream(threadNodes).sum(), timeMillis,
+                best.getPrincipalVariation());
+        this.threadNodes = threadNodes;
+    }
+
+    /**
+     * Returns the number of threads of the search.
+     *
+     * @return the number of threads
+     */
+    public int getThreadCount() {
+        return threadNodes.length;
+    }
+
+    /**
+     * Returns the number of nodes searched by each thread, the main thread first.
+     *
+     * @return a copy of the number of nodes searched by each thread
+     */
+    public long[] getThreadNodes() {
+        return Arrays.copyOf(threadNodes, threadNodes.length);
+    }
+
+    /**
+     * Returns the ratio between the number of nodes searched by all the threads and the number of nodes searched by
+     * the main thread alone, that is how many times the parallel search increased the search speed.
+     *
+     * @return the scaling of the nodes per second of the search
+     */
+    public double getNodesPerSecondScaling() {
+        return (double) getNodes() / Math.max(1, threadNodes[0]);
+    }
+
+    /**
+     * Returns the speedup of this search over a single-threaded search of the same position, as the ratio between the
+     * time spent by the single-threaded search and the time spent by this search. The ratio is meaningful only when
+     * both searches completed the same depth, e.g. when both were limited to a fixed depth.
+     *
+     * @param singleThreaded the result of the single-threaded search of the same position
+     * @return the time-to-depth speedup of this search
+     */
+    public double getSpeedup(SearchResult singleThreaded) {
+        return (double) Math.max(1, singleThreaded.getTimeMillis()) / Math.max(1, getTimeMillis());
+    }
+
+    /**
+     * Returns a string representation of this search result, in the format of the {@code info} command of the UCI
+     * protocol, followed by the number of threads.
+     *
+     * @return a string representation of this search result
+     */
+    @Override
+    public String toString() {
+        return super.toString() + " threads " + threadNodes.length;
+    }
+}
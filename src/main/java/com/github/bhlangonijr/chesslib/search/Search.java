@@ -0,0 +1,432 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.search;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.game.TimeControl;
+import com.github.bhlangonijr.chesslib.game.TimeControlType;
+import com.github.bhlangonijr.chesslib.move.MovePicker;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An embeddable chess search, looking for the best move of a position using an iterative deepening negamax search
+ * with alpha-beta pruning, principal variation search and a quiescence search over the captures. Moves are ordered by
+ * a {@link MovePicker}, using the best moves stored in a {@link TranspositionTable} and the killer moves of the
+ * sibling positions, and leaves are scored by an {@link Evaluator}.
+ * <p>
+ * The limits of a search are defined by a {@link TimeControl}:
+ * <ul>
+ *     <li>a depth, when greater than zero, limits the number of iterations;</li>
+ *     <li>a number of nodes, when greater than zero, limits the nodes searched;</li>
+ *     <li>for the time controls of type {@link TimeControlType#TIME_BONUS} and
+ *     {@link TimeControlType#MOVES_PER_TIME}, the time and the increment are taken as the clock of the side to move,
+ *     and a share of it is allotted to the search;</li>
+ *     <li>for the time controls of type {@link TimeControlType#FIXED_DEPTH} and {@link TimeControlType#NODES}, the
+ *     time is not taken into account, while for any other type it is the time allotted to the search.</li>
+ * </ul>
+ * A search with no limits runs until {@link Search#stop()} is invoked from another thread. The first iteration is
+ * always completed, so that a move is returned whenever the position has any legal move.
+ * <p>
+ * The search is performed on the board passed in input, which is restored to its original position when the search
+ * completes. Once warmed up, the search does not allocate any object but the results of its iterations. A search
+ * instance is not thread-safe, but multiple instances can share the same transposition table, as done by a
+ * {@link ParallelSearch}.
+ */
+public class Search {
+
+    /**
+     * The maximum depth of a search, in plies.
+     */
+    public static final int MAX_PLY = 100;
+    /**
+     * The score of a checkmate in the current position. The mate in <i>n</i> plies is scored as {@code MATE - n}.
+     */
+    public static final int MATE = 32000;
+    /**
+     * The lowest absolute value of a mate score.
+     */
+    public static final int MATE_BOUND = MATE - 2 * MAX_PLY;
+    /**
+     * A score greater than any possible score.
+     */
+    public static final int INFINITE = MATE + 1;
+
+    private static final int DRAW = 0;
+    private static final int NODES_BETWEEN_CHECKS = 2048;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    private static final long TIME_MARGIN_MILLIS = 50;
+    private static final int DEFAULT_TABLE_SIZE_MB = 16;
+    // the depths skipped by the helper threads of a parallel search, as in the Stockfish implementation of lazy SMP
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final TranspositionTable table;
+    private final Evaluator evaluator;
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private Consumer<SearchResult> listener;
+    private volatile boolean stopRequested;
+    private boolean aborted;
+    private Board board;
+    private int rootDepth;
+    private int threadIndex;
+    private long nodes;
+    private long nodeLimit;
+    private long nextCheck;
+    private long startTime;
+    private long deadline;
+
+    /**
+     * Constructs a new search, using a transposition table of 16 MB and the {@link SimpleEvaluator}.
+     */
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_SIZE_MB), new SimpleEvaluator());
+    }
+
+    /**
+     * Constructs a new search, using the given transposition table and evaluation function.
+     *
+     * @param table     the transposition table
+     * @param evaluator the evaluation function
+     */
+    public Search(TranspositionTable table, Evaluator evaluator) {
+        this.table = table;
+        this.evaluator = evaluator;
+        for (int i = 0; i < pickers.length; i++) {
+            pickers[i] = new MovePicker();
+        }
+    }
+
+    /**
+     * Sets a listener notified with the result of each iteration completed by the search, e.g. to report its
+     * progress. The listener is invoked by the thread performing the search.
+     *
+     * @param listener the listener of the iterations, or {@code null}
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the transposition table of the search.
+     *
+     * @return the transposition table
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Requests the search in progress to stop as soon as possible. The search returns the result of the last iteration
+     * completed. This method can be invoked from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Searches the best move of the position of a board, within the limits defined by a time control.
+     *
+     * @param board       the board of the position to search, restored to the same position when the search ends
+     * @param timeControl the limits of the search
+     * @return the result of the search
+     */
+    public SearchResult search(Board board, TimeControl timeControl) {
+        prepare();
+        table.newSearch();
+        return search(board, timeControl, 0);
+    }
+
+    /*
+     * clears the stop requests, before the search starts
+     */
+    void prepare() {
+        stopRequested = false;
+    }
+
+    /*
+     * runs the iterative deepening loop as the given thread of a parallel search, the first one being the main thread,
+     * that is the only one subject to the limits of the time control. The helper threads skip some of the depths, so
+     * that the threads spread over different depths, and run until stopped.
+     */
+    SearchResult search(Board board, TimeControl timeControl, int threadIndex) {
+        boolean mainThread = threadIndex == 0;
+        this.board = board;
+        this.threadIndex = threadIndex;
+        this.aborted = false;
+        this.nodes = 0;
+        this.nodeLimit = mainThread && timeControl.getNodes() > 0 ? timeControl.getNodes() : Long.MAX_VALUE;
+        this.nextCheck = NODES_BETWEEN_CHECKS;
+        this.startTime = System.currentTimeMillis();
+        long budget = mainThread ? timeBudget(timeControl) : 0;
+        this.deadline = budget > 0 ? startTime + budget : Long.MAX_VALUE;
+        int maxDepth = mainThread && timeControl.getDepth() > 0 ? Math.min(timeControl.getDepth(), MAX_PLY) : MAX_PLY;
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, PackedMove.NONE);
+        }
+
+        SearchResult result = null;
+        for (rootDepth = 1; rootDepth <= maxDepth; rootDepth++) {
+            if (!mainThread && skipDepth(threadIndex, rootDepth)) {
+                continue;
+            }
+            int score = search(-INFINITE, INFINITE, rootDepth, 0);
+            if (aborted) {
+                break;
+            }
+            result = new SearchResult(rootDepth, score, nodes, System.currentTimeMillis() - startTime,
+                    Arrays.copyOf(pv[0], pvLength[0]));
+            if (listener != null && mainThread) {
+                listener.accept(result);
+            }
+            // no legal moves, or a forced mate found within the depth already searched
+            if (pvLength[0] == 0 || Math.abs(score) >= MATE - rootDepth) {
+                break;
+            }
+            // the next iteration is unlikely to complete within the time left
+            if (budget > 0 && System.currentTimeMillis() - startTime > budget / 2) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /*
+     * returns the number of nodes searched so far by the current or the latest search
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    private static boolean skipDepth(int threadIndex, int depth) {
+        int index = (threadIndex - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[index]) / SKIP_SIZE[index]) % 2 != 0;
+    }
+
+    private int search(int alpha, int beta, int depth, int ply) {
+        if (depth <= 0) {
+            return quiescence(alpha, beta, ply);
+        }
+        pvLength[ply] = ply;
+        if (++nodes >= nextCheck) {
+            checkLimits();
+        }
+        if (aborted) {
+            return DRAW;
+        }
+        if (ply > 0) {
+            if (isDraw()) {
+                return DRAW;
+            }
+            if (ply >= MAX_PLY) {
+                return evaluator.evaluate(board);
+            }
+            // no score can be better than a mate in the next ply, or worse than being mated now
+            alpha = Math.max(alpha, -MATE + ply);
+            beta = Math.min(beta, MATE - ply - 1);
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+        boolean inCheck = board.isKingAttacked();
+        if (inCheck && ply < MAX_PLY / 2) {
+            depth++;
+        }
+        boolean pvNode = beta - alpha > 1;
+        long key = board.getIncrementalHashKey();
+        long entry = table.probe(key);
+        int hashMove = PackedMove.NONE;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.getMove(entry);
+            if (!pvNode && TranspositionTable.getDepth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT ||
+                        (bound == TranspositionTable.BOUND_LOWER && score >= beta) ||
+                        (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.init(board, hashMove, killers[ply][0], killers[ply][1]);
+        int bestScore = -INFINITE;
+        int bestMove = PackedMove.NONE;
+        int moveCount = 0;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            moveCount++;
+            board.makeMove(move);
+            int score;
+            if (moveCount == 1) {
+                score = -search(-beta, -alpha, depth - 1, ply + 1);
+            } else {
+                score = -search(-alpha - 1, -alpha, depth - 1, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -search(-beta, -alpha, depth - 1, ply + 1);
+                }
+            }
+            board.unmakeMove();
+            if (aborted) {
+                return DRAW;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePrincipalVariation(move, ply);
+                    if (score >= beta) {
+                        if (!PackedMove.isCapture(move) && !PackedMove.isPromotion(move)) {
+                            storeKiller(move, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (moveCount == 0) {
+            return inCheck ? -MATE + ply : DRAW;
+        }
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER :
+                bestMove != PackedMove.NONE ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if (++nodes >= nextCheck) {
+            checkLimits();
+        }
+        if (aborted) {
+            return DRAW;
+        }
+        if (isDraw()) {
+            return DRAW;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(board);
+        }
+        // when in check all the evasions are searched, otherwise the side to move can stand pat
+        boolean inCheck = board.isKingAttacked();
+        int bestScore;
+        MovePicker picker = pickers[ply];
+        if (inCheck) {
+            bestScore = -MATE + ply;
+            picker.init(board, PackedMove.NONE, PackedMove.NONE, PackedMove.NONE);
+        } else {
+            bestScore = evaluator.evaluate(board);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+            // losing captures are not worth searching
+            picker.initCaptures(board, true);
+        }
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            board.makeMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (aborted) {
+                return DRAW;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(move, ply);
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    private boolean isDraw() {
+        return board.getHalfMoveCounter() >= 100 || board.isRepetition(2) || board.isInsufficientMaterial();
+    }
+
+    private void updatePrincipalVariation(int move, int ply) {
+        pv[ply][ply] = move;
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = pvLength[ply + 1];
+    }
+
+    private void storeKiller(int move, int ply) {
+        if (PackedMove.withoutFlags(killers[ply][0]) != PackedMove.withoutFlags(move)) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    /*
+     * the first iteration of the main thread is never aborted, so that the search returns a move whenever there is one
+     */
+    private void checkLimits() {
+        nextCheck = nodes + NODES_BETWEEN_CHECKS;
+        if ((rootDepth > 1 || threadIndex > 0) &&
+                (stopRequested || nodes >= nodeLimit || System.currentTimeMillis() >= deadline)) {
+            aborted = true;
+        }
+    }
+
+    /*
+     * mate scores are stored relative to the position, rather than to the root of the search
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        } else if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        } else if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static long timeBudget(TimeControl timeControl) {
+        long milliseconds = timeControl.getMilliseconds();
+        if (milliseconds <= 0) {
+            return 0;
+        }
+        TimeControlType type = timeControl.getTimeControlType();
+        if (type == TimeControlType.FIXED_DEPTH || type == TimeControlType.NODES) {
+            return 0;
+        }
+        if (type == TimeControlType.TIME_BONUS || type == TimeControlType.MOVES_PER_TIME) {
+            int movesToGo = timeControl.getHalfMoves() > 0 ? timeControl.getHalfMoves() : DEFAULT_MOVES_TO_GO;
+            long budget = milliseconds / movesToGo + timeControl.getIncrement() * 3 / 4;
+            return Math.max(1, Math.min(budget, milliseconds - TIME_MARGIN_MILLIS));
+        }
+        return milliseconds;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.search;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The outcome of a search, or of one of its iterations: the best move found, its score, the principal variation and
+ * the statistics of the search.
+ * <p>
+ * Moves are stored as packed integers (see {@link PackedMove}), and can be converted to {@link Move} objects using
+ * {@link SearchResult#getBestMoveAsMove()} and {@link SearchResult#getPrincipalVariationAsMoves()}.
+ */
+public class SearchResult {
+
+    private final int depth;
+    private final int score;
+    private final long nodes;
+    private final long timeMillis;
+    private final int[] principalVariation;
+
+    /**
+     * Constructs a new search result.
+     *
+     * @param depth              the depth of the search
+     * @param score              the score of the best move, in centipawns, from the point of view of the side to move
+     * @param nodes              the number of nodes searched
+     * @param timeMillis         the time spent searching, in milliseconds
+     * @param principalVariation the principal variation, as packed moves
+     */
+    public SearchResult(int depth, int score, long nodes, long timeMillis, int[] principalVariation) {
+        this.depth = depth;
+        this.score = score;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * Returns the best move found by the search.
+     *
+     * @return the best move as a packed move, or {@link PackedMove#NONE} if the position has no legal moves
+     */
+    public int getBestMove() {
+        return principalVariation.length > 0 ? principalVariation[0] : PackedMove.NONE;
+    }
+
+    /**
+     * Returns the best move found by the search.
+     *
+     * @return the best move, or {@code null} if the position has no legal moves
+     */
+    public Move getBestMoveAsMove() {
+        return principalVariation.length > 0 ? PackedMove.toMove(principalVariation[0]) : null;
+    }
+
+    /**
+     * Returns the score of the best move, in centipawns, from the point of view of the side to move. Mate scores are
+     * returned as values greater than {@link Search#MATE_BOUND} in absolute value, see
+     * {@link SearchResult#getMateDistance()}.
+     *
+     * @return the score of the best move
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Checks whether the score of the best move is a mate score.
+     *
+     * @return {@code true} if the search found a forced mate, for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+
+    /**
+     * Returns the number of moves to the forced mate found by the search, positive if the side to move mates, and
+     * negative if it gets mated.
+     *
+     * @return the number of moves to mate, or {@code 0} if the score is not a mate score
+     */
+    public int getMateDistance() {
+        if (!isMate()) {
+            return 0;
+        }
+        return score > 0 ? (Search.MATE - score + 1) / 2 : -(Search.MATE + score) / 2;
+    }
+
+    /**
+     * Returns the depth of the search, that is the depth of the last iteration completed.
+     *
+     * @return the depth of the search
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of nodes searched, including the nodes of the quiescence search.
+     *
+     * @return the number of nodes searched
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the time spent searching, in milliseconds.
+     *
+     * @return the time spent searching
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Returns the speed of the search, in nodes per second.
+     *
+     * @return the number of nodes searched per second
+     */
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+
+    /**
+     * Returns the principal variation, that is the sequence of moves expected to be played by both sides from the
+     * position searched, starting with the best move.
+     *
+     * @return a copy of the principal variation, as packed moves
+     */
+    public int[] getPrincipalVariation() {
+        return Arrays.copyOf(principalVariation, principalVariation.length);
+    }
+
+    /**
+     * Returns the principal variation, that is the sequence of moves expected to be played by both sides from the
+     * position searched, starting with the best move.
+     *
+     * @return the principal variation
+     */
+    public List<Move> getPrincipalVariationAsMoves() {
+        List<Move> moves = new ArrayList<>(principalVariation.length);
+        for (int move : principalVariation) {
+            moves.add(PackedMove.toMove(move));
+        }
+        return moves;
+    }
+
+    /**
+     * Returns a string representation of this search result, in the format of the {@code info} command of the UCI
+     * protocol, e.g. {@code depth 8 score cp 35 nodes 120345 nps 1503000 time 80 pv e2e4 e7e5 g1f3}.
+     *
+     * @return a string representation of this search result
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        if (isMate()) {
+            sb.append(" score mate ").append(getMateDistance());
+        } else {
+            sb.append(" score cp ").append(score);
+        }
+        sb.append(" nodes ").append(nodes);
+        sb.append(" nps ").append(getNodesPerSecond());
+        sb.append(" time ").append(timeMillis);
+        if (principalVariation.length > 0) {
+            sb.append(" pv");
+            for (int move : principalVariation) {
+                sb.append(' ').append(PackedMove.toString(move));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.search;
+
+import com.github.bhlangonijr.chesslib.Bitboard;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.Side;
+
+/**
+ * A basic evaluation function, summing the material and the piece-square bonuses of the pieces on the board. The
+ * piece-square tables are the ones of the <i>Simplified Evaluation Function</i> by Tomasz Michniewski, with the
+ * king table interpolated between the middlegame and the endgame values according to the material left on the board.
+ *
+ * @see <a href="https://www.chessprogramming.org/Simplified_Evaluation_Function">Simplified Evaluation Function in
+ * Chess Programming Wiki</a>
+ */
+public class SimpleEvaluator implements Evaluator {
+
+    private static final int PIECE_COUNT = Piece.allPieces.length - 1;
+    private static final int MAX_PHASE = 24;
+    // the material values and the game phase weights of the piece types, indexed by ordinal
+    private static final int[] pieceValues = {100, 320, 330, 500, 900, 0};
+    private static final int[] phaseWeights = {0, 1, 1, 2, 4, 0};
+
+    // piece-square tables from the point of view of white, from square a8 to square h1
+    private static final int[] pawnTable = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] knightTable = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] bishopTable = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] rookTable = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] queenTable = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] kingMiddlegameTable = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    private static final int[] kingEndgameTable = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    // material plus piece-square values, signed from the point of view of white, indexed by piece and square
+    private static final int[][] middlegameValues = new int[PIECE_COUNT][64];
+    private static final int[][] endgameValues = new int[PIECE_COUNT][64];
+
+    static {
+        int[][] middlegameTables = {pawnTable, knightTable, bishopTable, rookTable, queenTable, kingMiddlegameTable};
+        int[][] endgameTables = {pawnTable, knightTable, bishopTable, rookTable, queenTable, kingEndgameTable};
+        for (int piece = 0; piece < PIECE_COUNT; piece++) {
+            int type = Piece.allPieces[piece].getPieceType().ordinal();
+            boolean white = Piece.allPieces[piece].getPieceSide() == Side.WHITE;
+            for (int square = 0; square < 64; square++) {
+                // the tables start from the 8th rank, that is the 1st rank from the point of view of black
+                int index = white ? square ^ 56 : square;
+                int sign = white ? 1 : -1;
+                middlegameValues[piece][square] = sign * (pieceValues[type] + middlegameTables[type][index]);
+                endgameValues[piece][square] = sign * (pieceValues[type] + endgameTables[type][index]);
+            }
+        }
+    }
+
+    /**
+     * Returns the static evaluation of the position of a board, in centipawns, from the point of view of the side to
+     * move.
+     *
+     * @param board the board of the position to evaluate
+     * @return the evaluation of the position, in centipawns
+     */
+    @Override
+    public int evaluate(Board board) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int piece = 0; piece < PIECE_COUNT; piece++) {
+            long pieces = board.getBitboard(Piece.allPieces[piece]);
+            if (pieces == 0L) {
+                continue;
+            }
+            phase += phaseWeights[Piece.allPieces[piece].getPieceType().ordinal()] * Long.bitCount(pieces);
+            for (; pieces != 0L; pieces = Bitboard.extractLsb(pieces)) {
+                int square = Bitboard.bitScanForward(pieces);
+                middlegame += middlegameValues[piece][square];
+                endgame += endgameValues[piece][square];
+            }
+        }
+        phase = Math.min(phase, MAX_PHASE);
+        int score = (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+        return board.getSideToMove() == Side.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2017 Ben-Hur Carlos Vieira Langoni Junior
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.bhlangonijr.chesslib.search;
+
+import com.github.bhlangonijr.chesslib.move.PackedMove;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * A fixed-size hash table caching the results of the search of chess positions, that is the best move found, the
+ * score, the depth of the search and the bound of the score. Positions are identified by their Zobrist key, as
+ * returned by {@link com.github.bhlangonijr.chesslib.Board#getIncrementalHashKey()}.
+ * <p>
+ * The table is backed by a single array of primitive longs, two per entry: the entry data, packing all the fields of
+ * the entry, and the key XOR-ed with the data. Entries are grouped in buckets of four, each one the size of a typical
+ * cache line, so that a probe touches a single line of memory. The table can be shared by any number of threads
+ * without any locking, since an entry torn by concurrent writes fails the key verification and it is simply treated as
+ * a miss.
+ * <p>
+ * The data of an entry is returned by {@link TranspositionTable#probe(long)} as a primitive long, so that no object is
+ * allocated, and it can be decoded with the static methods of the class, e.g. {@link TranspositionTable#getMove(long)}
+ * or {@link TranspositionTable#getScore(long)}. The bits of the data are laid out as follows:
+ * <ul>
+ *     <li>bits 0-19: the best move, as a {@link PackedMove};</li>
+ *     <li>bits 20-35: the score, as a signed 16-bit integer;</li>
+ *     <li>bits 36-43: the depth, as a signed 8-bit integer;</li>
+ *     <li>bits 44-45: the bound of the score;</li>
+ *     <li>bits 46-51: the generation of the search that stored the entry, used to age the entries;</li>
+ *     <li>bit 63: always set, so that the data of an entry is never equal to {@link TranspositionTable#MISS}.</li>
+ * </ul>
+ */
+public class TranspositionTable {
+
+    /**
+     * The value returned by a probe not finding any entry for the position.
+     */
+    public static final long MISS = 0L;
+    /**
+     * The bound of an entry with no score.
+     */
+    public static final int BOUND_NONE = 0;
+    /**
+     * The bound of a score that is an upper bound of the exact score, i.e. the search failed low.
+     */
+    public static final int BOUND_UPPER = 1;
+    /**
+     * The bound of a score that is a lower bound of the exact score, i.e. the search failed high.
+     */
+    public static final int BOUND_LOWER = 2;
+    /**
+     * The bound of an exact score.
+     */
+    public static final int BOUND_EXACT = 3;
+
+    private static final int ENTRY_SIZE = 2;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_SIZE = ENTRY_SIZE * BUCKET_ENTRIES;
+    private static final int MAX_BUCKETS = 1 << 27;
+    private static final int MOVE_BITS = 20;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+    private static final int SCORE_SHIFT = 20;
+    private static final int DEPTH_SHIFT = 36;
+    private static final int BOUND_SHIFT = 44;
+    private static final int GENERATION_SHIFT = 46;
+    private static final int GENERATION_MASK = 0x3F;
+    private static final long VALID = 1L << 63;
+    private static final int PARALLEL_CLEAR_THRESHOLD = 1 << 21;
+    private static final int CLEAR_CHUNK_SIZE = 1 << 18;
+    private static final int HASHFULL_SAMPLE = 1000;
+
+    private final long[] table;
+    private final int bucketMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private volatile int generation;
+
+    /**
+     * Constructs a new transposition table of the given size. The number of entries is rounded down to the nearest
+     * power of two that fits in the requested size.
+     *
+     * @param sizeInMb the size of the table, in megabytes
+     * @throws IllegalArgumentException if the size is lower than one megabyte
+     */
+    public TranspositionTable(int sizeInMb) {
+        if (sizeInMb < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB: " + sizeInMb);
+        }
+        long buckets = (sizeInMb * 1024L * 1024L) / (BUCKET_SIZE * Long.BYTES);
+        int capacity = (int) Math.min(Long.highestOneBit(buckets), MAX_BUCKETS);
+        this.table = new long[capacity * BUCKET_SIZE];
+        this.bucketMask = capacity - 1;
+    }
+
+    /**
+     * Looks up the entry stored for a position.
+     *
+     * @param key the Zobrist key of the position
+     * @return the data of the entry, or {@link TranspositionTable#MISS} if no entry is found
+     */
+    public long probe(long key) {
+        int bucket = bucket(key);
+        for (int index = bucket; index < bucket + BUCKET_SIZE; index += ENTRY_SIZE) {
+            long data = table[index + 1];
+            if ((table[index] ^ data) == key && data != MISS) {
+                hits.increment();
+                return data;
+            }
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    /**
+     * Stores the result of the search of a position. The entry replaces the one already stored for the same position,
+     * if any, or otherwise the entry of the bucket with the lowest depth, with the entries stored by the previous
+     * searches (see {@link TranspositionTable#newSearch()}) being replaced first.
+     * <p>
+     * When no move is given and the table already holds a move for the position, the move is preserved.
+     *
+     * @param key   the Zobrist key of the position
+     * @param move  the best move, or {@link PackedMove#NONE}
+     * @param score the score, in the range of a signed 16-bit integer
+     * @param depth the depth of the search, in the range of a signed 8-bit integer
+     * @param bound the bound of the score, e.g. {@link TranspositionTable#BOUND_EXACT}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int bucket = bucket(key);
+        int generation = this.generation;
+        int replace = bucket;
+        int replaceWorth = Integer.MAX_VALUE;
+        for (int index = bucket; index < bucket + BUCKET_SIZE; index += ENTRY_SIZE) {
+            long data = table[index + 1];
+            if (data == MISS) {
+                replace = index;
+                replaceWorth = Integer.MIN_VALUE;
+                continue;
+            }
+            if ((table[index] ^ data) == key) {
+                if (move == PackedMove.NONE) {
+                    move = getMove(data);
+                }
+                replace = index;
+                break;
+            }
+            // older entries are worth less, and shallower entries of the same age are replaced first
+            int age = (generation - getGeneration(data)) & GENERATION_MASK;
+            int worth = getDepth(data) - 8 * age;
+            if (worth < replaceWorth) {
+                replace = index;
+                replaceWorth = worth;
+            }
+        }
+        long old = table[replace + 1];
+        if (old != MISS && (table[replace] ^ old) != key) {
+            collisions.increment();
+        }
+        long data = encode(move, score, depth, bound, generation);
+        table[replace] = key ^ data;
+        table[replace + 1] = data;
+    }
+
+    /**
+     * Signals the start of a new search, so that the entries stored by the previous searches can be replaced first.
+     * It is expected to be invoked once per search, before the search threads start.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * Removes all the entries from the table, and resets its statistics. Large tables are cleared in parallel, using
+     * the threads of the common fork-join pool.
+     */
+    public void clear() {
+        if (table.length >= PARALLEL_CLEAR_THRESHOLD) {
+            int chunks = (table.length + CLEAR_CHUNK_SIZE - 1) / CLEAR_CHUNK_SIZE;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> Arrays.fill(table, chunk * CLEAR_CHUNK_SIZE,
+                    Math.min(table.length, (chunk + 1) * CLEAR_CHUNK_SIZE), 0L));
+        } else {
+            Arrays.fill(table, 0L);
+        }
+        generation = 0;
+        resetStatistics();
+    }
+
+    /**
+     * Returns the number of entries the table can hold.
+     *
+     * @return the capacity of the table
+     */
+    public int getCapacity() {
+        return (bucketMask + 1) * BUCKET_ENTRIES;
+    }
+
+    /**
+     * Returns an estimation of the occupation of the table, in permille, computed as the number of entries stored by
+     * the current search among the first thousand entries of the table. It is the value reported as {@code hashfull}
+     * by the engines implementing the UCI protocol.
+     *
+     * @return the occupation of the table, in permille
+     */
+    public int getHashFull() {
+        int sample = Math.min(HASHFULL_SAMPLE, getCapacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * ENTRY_SIZE + 1];
+            if (data != MISS && getGeneration(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    /**
+     * Returns the number of probes that found an entry for the position.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of probes that did not find any entry for the position.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of stores that replaced the entry of a different position.
+     *
+     * @return the number of collisions
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    /**
+     * Resets the counters of hits, misses and collisions of the table.
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+    }
+
+    /**
+     * Returns the best move of an entry.
+     *
+     * @param data the data of the entry
+     * @return the best move, or {@link PackedMove#NONE}
+     */
+    public static int getMove(long data) {
+        return (int) (data & MOVE_MASK);
+    }
+
+    /**
+     * Returns the score of an entry.
+     *
+     * @param data the data of the entry
+     * @return the score
+     */
+    public static int getScore(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    /**
+     * Returns the depth of the search of an entry.
+     *
+     * @param data the data of the entry
+     * @return the depth of the search
+     */
+    public static int getDepth(long data) {
+        return (byte) (data >>> DEPTH_SHIFT);
+    }
+
+    /**
+     * Returns the bound of the score of an entry.
+     *
+     * @param data the data of the entry
+     * @return the bound of the score, e.g. {@link TranspositionTable#BOUND_EXACT}
+     */
+    public static int getBound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    private static int getGeneration(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    private static long encode(int move, int score, int depth, int bound, int generation) {
+        return VALID |
+                (move & MOVE_MASK) |
+                ((score & 0xFFFFL) << SCORE_SHIFT) |
+                ((depth & 0xFFL) << DEPTH_SHIFT) |
+                ((long) (bound & 3) << BOUND_SHIFT) |
+                ((long) generation << GENERATION_SHIFT);
+    }
+
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE;
+    }
+}
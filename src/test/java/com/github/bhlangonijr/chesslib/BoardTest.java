@@ -2,11 +2,19 @@ package com.github.bhlangonijr.chesslib;
 
 import com.github.bhlangonijr.chesslib.move.Move;
 import com.github.bhlangonijr.chesslib.move.MoveConversionException;
+import com.github.bhlangonijr.chesslib.move.MoveGenerator;
 import com.github.bhlangonijr.chesslib.move.MoveGeneratorException;
 import com.github.bhlangonijr.chesslib.move.MoveList;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -829,5 +837,390 @@ public class BoardTest {
         assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", board.getFen());
     }
 
+    @Test
+    public void testMakeUnmakeMove() {
+
+        String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+                "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1"
+        };
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (String fen : fens) {
+            Board board = new Board();
+            board.loadFromFen(fen);
+            Board reference = new Board();
+            reference.loadFromFen(fen);
+            String initialFen = board.getFen();
+            long initialKey = board.getIncrementalHashKey();
+            int count = MoveGenerator.generateLegalMoves(board, moves);
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                reference.doMove(PackedMove.toMove(moves[i]));
+                assertEquals(reference.getFen(), board.getFen());
+                assertEquals(reference.getIncrementalHashKey(), board.getIncrementalHashKey());
+                assertEquals(board.getZobristKey(), board.getIncrementalHashKey());
+                assertEquals(reference.getHistory(), board.getHistory());
+                assertEquals(moves[i], board.unmakeMove());
+                reference.undoMove();
+                assertEquals(initialFen, board.getFen());
+                assertEquals(initialKey, board.getIncrementalHashKey());
+            }
+            assertTrue(board.getBackup().isEmpty());
+        }
+    }
+
+    @Test
+    public void testRetainedMoveBackup() {
+
+        Board board = new Board();
+        board.doMove(new Move(Square.E2, Square.E4));
+        MoveBackup first = board.getBackup().getLast();
+        board.undoMove();
+        board.doMove(new Move(Square.D2, Square.D4));
+        // a backup handed out by the board is never reused
+        assertNotSame(first, board.getBackup().getLast());
+        assertEquals(new Move(Square.E2, Square.E4), first.getMove());
+        board.undoMove();
+        assertEquals(new Board().getFen(), board.getFen());
+
+        // neither is a backup notified to the listeners of the undo events
+        List<BoardEvent> events = new ArrayList<>();
+        board.addEventListener(BoardEventType.ON_UNDO_MOVE, events::add);
+        board.doMove(new Move(Square.E2, Square.E4));
+        board.undoMove();
+        board.doMove(new Move(Square.D2, Square.D4));
+        assertNotSame(events.get(0), board.getBackup().getLast());
+        assertEquals(new Move(Square.E2, Square.E4), ((MoveBackup) events.get(0)).getMove());
+    }
+
+    @Test
+    public void testCastleRightMapAndHistory() {
+
+        Board board = new Board();
+        board.loadFromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        EnumMap<Side, CastleRight> castleRight = board.getCastleRight();
+        LinkedList<Long> history = board.getHistory();
+        assertTrue(board.doMove(new Move(Square.E1, Square.E2)));
+        assertEquals(CastleRight.NONE, castleRight.get(Side.WHITE));
+        assertEquals(CastleRight.KING_AND_QUEEN_SIDE, castleRight.get(Side.BLACK));
+        assertEquals(CastleRight.NONE, castleRight.clone().get(Side.WHITE));
+
+        castleRight.put(Side.BLACK, CastleRight.KING_SIDE);
+        assertEquals(CastleRight.KING_SIDE, board.getCastleRight(Side.BLACK));
+        assertEquals("r3k2r/8/8/8/8/8/4K3/R6R b k - 1 1", board.getFen());
+
+        // the history is a copy, while its keys are available without copying it
+        assertEquals(1, history.size());
+        assertEquals(2, board.getHistory().size());
+        assertEquals(2, board.getHistorySize());
+        assertEquals(board.getIncrementalHashKey(), board.getHistoryKey(1));
+        assertEquals(board.getHistory().getLast(), Long.valueOf(board.getHistoryKey(1)));
+    }
+
+    @Test
+    public void testPrimitiveBoardState() {
+
+        Board board = new Board();
+        board.loadFromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQk - 99 120");
+        assertEquals(CastleRight.KING_AND_QUEEN_SIDE, board.getCastleRight(Side.WHITE));
+        assertEquals(CastleRight.KING_SIDE, board.getCastleRight(Side.BLACK));
+        assertEquals(Integer.valueOf(99), board.getHalfMoveCounter());
+        assertEquals(Integer.valueOf(120), board.getMoveCounter());
+
+        board.setCastleRight(Side.BLACK, CastleRight.QUEEN_SIDE);
+        assertEquals("r3k2r/8/8/8/8/8/8/R3K2R w KQq - 99 120", board.getFen());
+
+        board.doMove(new Move(Square.H1, Square.H2));
+        assertEquals(CastleRight.QUEEN_SIDE, board.getCastleRight(Side.WHITE));
+        assertEquals(Integer.valueOf(100), board.getHalfMoveCounter());
+        board.doMove(new Move(Square.E8, Square.D8));
+        assertEquals(Integer.valueOf(121), board.getMoveCounter());
+        assertEquals(3, board.getHistory().size());
+
+        Board copy = board.clone();
+        assertTrue(copy.strictEquals(board));
+        board.undoMove();
+        board.undoMove();
+        assertEquals("r3k2r/8/8/8/8/8/8/R3K2R w KQq - 99 120", board.getFen());
+        assertEquals(1, board.getHistory().size());
+        assertFalse(copy.strictEquals(board));
+    }
+
+    @Test
+    public void testRepetitionInLongGame() {
+
+        Board board = new Board();
+        Move[] shuffle = {new Move(Square.G1, Square.F3), new Move(Square.G8, Square.F6),
+                new Move(Square.F3, Square.G1), new Move(Square.F6, Square.G8)};
+        Move[] pawns = {new Move(Square.A2, Square.A3), new Move(Square.A7, Square.A6),
+                new Move(Square.H2, Square.H3), new Move(Square.H7, Square.H6),
+                new Move(Square.B2, Square.B3), new Move(Square.B7, Square.B6)};
+        for (int i = 0; i < 300; i++) {
+            board.doMove(shuffle[i % 4]);
+            if (i % 96 == 95) {
+                assertTrue(board.isRepetition());
+                board.doMove(pawns[i / 96 * 2]);
+                board.doMove(pawns[i / 96 * 2 + 1]);
+                assertFalse(board.isRepetition(2));
+            }
+        }
+        assertTrue(board.isRepetition(4));
+        assertFalse(board.isRepetition(5));
+        for (int i = 0; i < 4; i++) {
+            board.undoMove();
+        }
+        assertTrue(board.isRepetition());
+        assertFalse(board.isRepetition(4));
 
-}
\ No newline at end of file
+        Board copy = board.clone();
+        assertTrue(copy.isRepetition());
+        board.loadFromFen(board.getFen());
+        assertFalse(board.isRepetition(2));
+    }
+
+    @Test
+    public void testRepetitionTable() {
+
+        RepetitionTable table = new RepetitionTable();
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            // few distinct keys, clustered in the low bits to stress the probing
+            long key = (random.nextInt(300) * 64L) << (random.nextBoolean() ? 0 : 32);
+            if (random.nextInt(3) > 0 || reference.getOrDefault(key, 0) == 0) {
+                table.increment(key);
+                reference.merge(key, 1, Integer::sum);
+            } else {
+                table.decrement(key);
+                reference.merge(key, -1, Integer::sum);
+            }
+            assertEquals((int) reference.get(key), table.count(key));
+        }
+        for (Map.Entry<Long, Integer> entry : reference.entrySet()) {
+            assertEquals((int) entry.getValue(), table.count(entry.getKey()));
+        }
+        table.clear();
+        assertEquals(0, table.count(reference.keySet().iterator().next()));
+    }
+
+    @Test
+    public void testCachedAttackState() {
+
+        Board board = new Board();
+        board.loadFromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        for (Move move : board.legalMoves()) {
+            board.doMove(move);
+            for (Side side : Side.allSides) {
+                long attacked = 0L;
+                for (Square sq : Square.values()) {
+                    if (sq != Square.NONE && board.squareAttackedBy(sq, side) != 0L) {
+                        attacked |= sq.getBitboard();
+                    }
+                }
+                assertEquals(attacked, board.getAttackedSquares(side));
+            }
+            assertEquals(board.squareAttackedBy(board.getKingSquare(board.getSideToMove()),
+                    board.getSideToMove().flip()), board.getCheckers());
+            board.undoMove();
+        }
+
+        board.loadFromFen("7k/8/8/8/8/8/8/R3K3 b - - 0 1");
+        assertFalse(board.isKingAttacked());
+        assertFalse(board.isStaleMate());
+        board.setPiece(Piece.WHITE_ROOK, Square.H1);
+        assertTrue(board.isKingAttacked());
+        board.setPiece(Piece.WHITE_ROOK, Square.G1);
+        assertTrue(board.isMated());
+        board.unsetPiece(Piece.WHITE_ROOK, Square.H1);
+        assertFalse(board.isKingAttacked());
+        assertFalse(board.isMated());
+        board.unsetPiece(Piece.WHITE_ROOK, Square.A1);
+        board.setPiece(Piece.WHITE_QUEEN, Square.F7);
+        assertTrue(board.isStaleMate());
+        board.setSideToMove(Side.WHITE);
+        assertFalse(board.isStaleMate());
+    }
+
+    @Test
+    public void testGameStatus() {
+
+        Board board = new Board();
+        assertEquals(GameStatus.ONGOING, board.getGameStatus());
+        assertFalse(board.getGameStatus().isGameOver());
+        assertEquals(20, board.getLegalMoveCount());
+
+        board.loadFromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        assertEquals(GameStatus.CHECKMATE, board.getGameStatus());
+        assertTrue(board.isMated());
+        assertFalse(board.getGameStatus().isDraw());
+
+        board.loadFromFen("7k/5Q2/8/8/8/8/8/K7 b - - 0 1");
+        assertEquals(GameStatus.STALEMATE, board.getGameStatus());
+        assertTrue(board.isStaleMate());
+        assertEquals(0, board.getLegalMoveCount());
+
+        board.loadFromFen("8/8/4k3/8/8/3BK3/8/8 w - - 0 1");
+        assertEquals(GameStatus.INSUFFICIENT_MATERIAL, board.getGameStatus());
+
+        board.loadFromFen("8/8/4k3/8/8/3RK3/8/8 w - - 100 80");
+        assertEquals(GameStatus.FIFTY_MOVE_RULE, board.getGameStatus());
+        assertTrue(board.getGameStatus().isDraw());
+
+        board.loadFromFen("6k1/8/6K1/8/8/8/8/R7 w - - 98 80");
+        board.doMove(new Move(Square.A1, Square.B1));
+        assertEquals(GameStatus.ONGOING, board.getGameStatus());
+        board.doMove(new Move(Square.G8, Square.H8));
+        assertEquals(GameStatus.FIFTY_MOVE_RULE, board.getGameStatus());
+        board.doMove(new Move(Square.B1, Square.B8));
+        assertEquals(Integer.valueOf(101), board.getHalfMoveCounter());
+        assertEquals(GameStatus.CHECKMATE, board.getGameStatus());
+
+        board = new Board();
+        Move[] shuffle = {new Move(Square.G1, Square.F3), new Move(Square.G8, Square.F6),
+                new Move(Square.F3, Square.G1), new Move(Square.F6, Square.G8)};
+        for (int i = 0; i < 8; i++) {
+            board.doMove(shuffle[i % 4]);
+        }
+        assertEquals(GameStatus.THREEFOLD_REPETITION, board.getGameStatus());
+    }
+
+    @Test
+    public void testStaticExchangeEvaluation() {
+        Board board = new Board();
+        board.loadFromFen("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1");
+        assertEquals(100, board.see(new Move("e1e5", Side.WHITE)));
+
+        // x-rays of the queens behind the bishop and the rook
+        board.loadFromFen("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1");
+        Move move = new Move("d3e5", Side.WHITE);
+        assertEquals(-200, board.see(move));
+        assertEquals(-200, board.see(PackedMove.encode(move)));
+        assertTrue(board.seeGreaterOrEqual(move, -200));
+        assertFalse(board.seeGreaterOrEqual(move, -199));
+
+        // en passant capture
+        board.loadFromFen("8/8/8/3pP3/8/8/8/4K2k w - d6 0 1");
+        assertEquals(100, board.see(new Move("e5d6", Side.WHITE)));
+
+        // promotions, with and without recapture
+        board.loadFromFen("3r3k/2P5/8/8/8/8/8/K7 w - - 0 1");
+        assertEquals(1300, board.see(new Move("c7d8q", Side.WHITE)));
+        assertEquals(-100, board.see(new Move("c7c8q", Side.WHITE)));
+
+        // the king can not recapture on a square still defended
+        board.loadFromFen("8/8/8/3p4/2k5/8/3R4/3RK3 w - - 0 1");
+        assertEquals(100, board.see(new Move("d2d5", Side.WHITE)));
+        board.loadFromFen("8/8/8/3p4/2k5/8/3R4/4K3 w - - 0 1");
+        assertEquals(-400, board.see(new Move("d2d5", Side.WHITE)));
+
+        // the threshold check always agrees with the exact evaluation
+        board.loadFromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Random random = new Random(7);
+        for (int ply = 0; ply < 60; ply++) {
+            int count = MoveGenerator.generateLegalMoves(board, moves);
+            if (count == 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                int see = board.see(moves[i]);
+                for (int threshold = -1000; threshold <= 1000; threshold += 100) {
+                    assertEquals(board.getFen() + " " + PackedMove.toString(moves[i]),
+                            see >= threshold, board.seeGreaterOrEqual(moves[i], threshold));
+                }
+            }
+            board.makeMove(moves[random.nextInt(count)]);
+        }
+    }
+
+    @Test
+    public void testPolyglotKey() {
+        // reference keys from the specification of the Polyglot book format
+        String[][] positions = {
+                {"", "463b96181691fc9c"},
+                {"e2e4", "823c9b50fd114196"},
+                {"e2e4 d7d5", "0756b94461c50fb0"},
+                {"e2e4 d7d5 e4e5", "662fafb965db29d4"},
+                {"e2e4 d7d5 e4e5 f7f5", "22a48b5a8e47ff78"},
+                {"e2e4 d7d5 e4e5 f7f5 e1e2", "652a607ca3f242c1"},
+                {"e2e4 d7d5 e4e5 f7f5 e1e2 e8f7", "00fdd303c946bdd9"},
+                {"a2a4 b7b5 h2h4 b5b4 c2c4", "3c8123ea7b067637"},
+                {"a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a3", "5c3f9b829b279560"}
+        };
+        for (String[] position : positions) {
+            Board board = new Board();
+            for (String move : position[0].split(" ")) {
+                if (!move.isEmpty()) {
+                    board.doMove(move);
+                }
+            }
+            assertEquals(position[0], Long.parseUnsignedLong(position[1], 16), board.getPolyglotKey());
+        }
+
+        // the incremental hash always matches the one computed from scratch, also when moves are taken back
+        Board board = new Board();
+        board.loadFromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Random random = new Random(3);
+        for (int ply = 0; ply < 100; ply++) {
+            int count = MoveGenerator.generateLegalMoves(board, moves);
+            if (count == 0) {
+                break;
+            }
+            board.makeMove(moves[random.nextInt(count)]);
+            assertEquals(board.getFen(), PolyglotKeys.computeKey(board), board.getPolyglotKey());
+            if (ply % 3 == 0) {
+                board.unmakeMove();
+                assertEquals(board.getFen(), PolyglotKeys.computeKey(board), board.getPolyglotKey());
+            }
+        }
+    }
+
+    @Test
+    public void testPawnKingAndMaterialKeys() {
+        Board board = new Board();
+        Board other = new Board();
+        // same pawns and kings, different pieces
+        board.loadFromFen("r3k3/pp3ppp/8/8/8/8/PPP2PPP/4K2R w K - 0 1");
+        other.loadFromFen("4k1n1/pp3ppp/8/8/8/8/PPP2PPP/2B1K3 b - - 0 1");
+        assertEquals(board.getPawnKingKey(), other.getPawnKingKey());
+        assertNotEquals(board.getMaterialKey(), other.getMaterialKey());
+        // same material, different placement
+        other.loadFromFen("4k2r/ppp2p1p/8/8/8/8/PPPP2PP/R3K3 w - - 0 1");
+        assertNotEquals(board.getPawnKingKey(), other.getPawnKingKey());
+        assertEquals(board.getMaterialKey(), other.getMaterialKey());
+        other.loadFromFen("4k2r/ppp2p1p/8/8/8/8/PPPP2PP/B3K3 w - - 0 1");
+        assertNotEquals(board.getMaterialKey(), other.getMaterialKey());
+
+        board.loadFromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Random random = new Random(5);
+        for (int ply = 0; ply < 100; ply++) {
+            int count = MoveGenerator.generateLegalMoves(board, moves);
+            if (count == 0) {
+                break;
+            }
+            int move = moves[random.nextInt(count)];
+            if (ply % 2 == 0) {
+                board.makeMove(move);
+            } else {
+                board.doMove(PackedMove.toMove(move));
+            }
+            other.loadFromFen(board.getFen());
+            assertEquals(board.getFen(), other.getPawnKingKey(), board.getPawnKingKey());
+            assertEquals(board.getFen(), other.getMaterialKey(), board.getMaterialKey());
+            if (ply % 3 == 0) {
+                if (ply % 2 == 0) {
+                    board.unmakeMove();
+                } else {
+                    board.undoMove();
+                }
+                other.loadFromFen(board.getFen());
+                assertEquals(board.getFen(), other.getPawnKingKey(), board.getPawnKingKey());
+                assertEquals(board.getFen(), other.getMaterialKey(), board.getMaterialKey());
+            }
+        }
+    }
+}
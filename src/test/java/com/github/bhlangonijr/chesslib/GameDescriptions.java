@@ -0,0 +1,41 @@
+package com.github.bhlangonijr.chesslib;
+
+import com.github.bhlangonijr.chesslib.game.Game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes the games loaded by the PGN tests as comparable strings, made of the players, the result and the moves of
+ * each game.
+ */
+final class GameDescriptions {
+
+    private GameDescriptions() {
+    }
+
+    /**
+     * Returns the description of a game.
+     *
+     * @param game the game to describe
+     * @return the description of the game
+     */
+    static String describe(Game game) {
+        return game.getWhitePlayer().getName() + " - " + game.getBlackPlayer().getName() + " " + game.getResult() +
+                " " + game.getHalfMoves().toString();
+    }
+
+    /**
+     * Returns the descriptions of the given games, in the same order.
+     *
+     * @param games the games to describe
+     * @return the descriptions of the games
+     */
+    static List<String> describe(Iterable<Game> games) {
+        List<String> descriptions = new ArrayList<>();
+        for (Game game : games) {
+            descriptions.add(describe(game));
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.bhlangonijr.chesslib;
+
+import com.github.bhlangonijr.chesslib.game.Game;
+import com.github.bhlangonijr.chesslib.pgn.ParallelPgnLoader;
+import com.github.bhlangonijr.chesslib.pgn.PgnHolder;
+import com.github.bhlangonijr.chesslib.pgn.PgnIterator;
+import com.github.bhlangonijr.chesslib.pgn.PgnLoadStatistics;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.github.bhlangonijr.chesslib.GameDescriptions.describe;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Parallel PGN loader test.
+ */
+public class ParallelPgnLoaderTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOrderedLoading() throws Exception {
+        for (String filename : new String[]{"src/test/resources/cup.pgn", "src/test/resources/31_games.pgn"}) {
+            List<String> expected = describe(new PgnIterator(filename));
+            List<Game> games = new ArrayList<>();
+            PgnLoadStatistics statistics = new ParallelPgnLoader(executor, 8 * 1024, true).load(filename, games::add);
+
+            assertEquals(filename, expected, describe(games));
+            assertEquals(expected.size(), statistics.getGames());
+            assertEquals(new File(filename).length(), statistics.getBytes());
+            assertTrue(statistics.getChunks() > 1);
+            assertTrue(statistics.getGamesPerSecond() > 0);
+        }
+    }
+
+    @Test
+    public void testUnorderedLoading() throws Exception {
+        String filename = "src/test/resources/cup.pgn";
+        List<String> expected = describe(new PgnIterator(filename));
+        List<Game> games = new ArrayList<>();
+        new ParallelPgnLoader(executor, 4 * 1024, false).load(filename, games::add);
+
+        List<String> loaded = describe(games);
+        assertEquals(expected.size(), loaded.size());
+        expected.sort(String::compareTo);
+        loaded.sort(String::compareTo);
+        assertEquals(expected, loaded);
+    }
+
+    @Test
+    public void testHolderParallelLoading() throws Exception {
+        PgnHolder holder = new PgnHolder("src/test/resources/cup.pgn");
+        PgnLoadStatistics statistics = holder.loadPgn(executor);
+        assertEquals(900, holder.getGames().size());
+        assertEquals(900, statistics.getGames());
+    }
+}
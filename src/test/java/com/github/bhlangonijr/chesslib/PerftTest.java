@@ -1,10 +1,17 @@
 package com.github.bhlangonijr.chesslib;
 
 import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.MoveGenerator;
 import com.github.bhlangonijr.chesslib.move.MoveGeneratorException;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
+import com.github.bhlangonijr.chesslib.perft.Perft;
+import com.github.bhlangonijr.chesslib.perft.PerftHashTable;
+import com.github.bhlangonijr.chesslib.perft.PerftResult;
+import org.junit.After;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static junit.framework.Assert.assertEquals;
 
@@ -15,6 +22,13 @@ public class PerftTest {
 
     private static final boolean CHECK_BOARD_STATE = false;
 
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
     /**
      * Test perft 1.
      *
@@ -189,6 +203,116 @@ public class PerftTest {
         assertEquals(6421514, nodes);
     }
 
+    @Test
+    public void testPackedPerft() {
+        String[] fens = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1",
+                "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1",
+                "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1",
+                "4k3/1P6/8/8/8/8/K7/8 w - - 0 1",
+                "8/P1k5/K7/8/8/8/8/8 w - - 0 1",
+                "K1k5/8/P7/8/8/8/8/8 w - - 0 1",
+                "8/k1P5/8/1K6/8/8/8/8 w - - 0 1",
+                "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1",
+                "8/1pp3p1/4pq1p/PP1bpk2/1Q2p3/4P1P1/2B2P2/6K1 b - - 2 33"
+        };
+        int[] depths = {5, 4, 4, 4, 4, 4, 4, 5, 6, 6, 6, 7, 4, 5};
+        long[] expected = {4865609, 2103487, 3894594, 4085603, 422333, 1274206, 1720476, 1004658, 217342, 92683,
+                2217, 567584, 23527, 6421514};
+
+        long totalNodes = 0;
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < fens.length; i++) {
+            Board board = new Board();
+            board.setEnableEvents(false);
+            board.loadFromFen(fens[i]);
+            long nodes = packedPerft(board, depths[i], new int[depths[i] + 1][MoveGenerator.MAX_MOVES]);
+            assertEquals(fens[i], expected[i], nodes);
+            totalNodes += nodes;
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - time);
+        System.out.println("Packed perft node count: " + totalNodes);
+        System.out.println("Packed perft nodes/s: " + totalNodes * 1000 / elapsed);
+    }
+
+    @Test
+    public void testParallelPerft() {
+        Perft perft = new Perft();
+        PerftResult result = perft.divide("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -", 4);
+        assertEquals(4085603, result.getNodes());
+        assertEquals(48, result.getDivide().size());
+        long sum = 0;
+        for (long nodes : result.getDivide().values()) {
+            sum += nodes;
+        }
+        assertEquals(result.getNodes(), sum);
+        System.out.println(result);
+
+        Perft splitPerft = new Perft(pool, 3);
+        assertEquals(4865609, splitPerft.divide("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 5)
+                .getNodes());
+        assertEquals(567584, splitPerft.divide("8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7).getNodes());
+    }
+
+    @Test
+    public void testParallelPerftKeepsBoard() {
+        Board board = new Board();
+        board.loadFromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        String fen = board.getFen();
+        assertEquals(422333, new Perft().count(board, 4));
+        assertEquals(422333, Perft.perft(board, 4));
+        assertEquals(fen, board.getFen());
+        assertEquals(1, new Perft().count(board, 0));
+    }
+
+    @Test
+    public void testHashedPerft() {
+        PerftHashTable hashTable = new PerftHashTable(64);
+        Perft perft = new Perft(ForkJoinPool.commonPool(), 1, hashTable);
+        String[] fens = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"
+        };
+        int[] depths = {6, 5, 6, 5};
+        long[] expected = {119060324, 193690690, 11030083, 15833292};
+        for (int i = 0; i < fens.length; i++) {
+            hashTable.clear();
+            PerftResult result = perft.divide(fens[i], depths[i]);
+            assertEquals(fens[i], expected[i], result.getNodes());
+            System.out.println("Hashed perft " + depths[i] + ": " + result.getNodes() + " nodes, " +
+                    result.getElapsedTime() + " ms");
+        }
+
+        PerftHashTable alwaysReplace = new PerftHashTable(1, PerftHashTable.ReplacementPolicy.ALWAYS);
+        Board board = new Board();
+        board.loadFromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -");
+        assertEquals(674624, Perft.perft(board, 5, alwaysReplace));
+        assertEquals(674624, Perft.perft(board, 5, alwaysReplace));
+    }
+
+    private long packedPerft(Board board, int depth, int[][] buffers) {
+
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        int[] moves = buffers[depth];
+        int count = MoveGenerator.generateLegalMoves(board, moves);
+        for (int i = 0; i < count; i++) {
+            board.doMove(PackedMove.toMove(moves[i]), false);
+            nodes += packedPerft(board, depth - 1, buffers);
+            board.undoMove();
+        }
+        return nodes;
+    }
+
     /**
      * Test perft long.
      *
@@ -0,0 +1,156 @@
+package com.github.bhlangonijr.chesslib;
+
+import com.github.bhlangonijr.chesslib.game.Game;
+import com.github.bhlangonijr.chesslib.pgn.PgnHolder;
+import com.github.bhlangonijr.chesslib.pgn.PgnIndex;
+import com.github.bhlangonijr.chesslib.pgn.PgnIndexEntry;
+import com.github.bhlangonijr.chesslib.pgn.PgnIterator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.github.bhlangonijr.chesslib.GameDescriptions.describe;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type PGN index test.
+ */
+public class PgnIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path copy(String resource) throws Exception {
+        Path source = Paths.get("src/test/resources", resource);
+        Path target = folder.getRoot().toPath().resolve(resource);
+        Files.copy(source, target);
+        return target;
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        Path path = copy("cup.pgn");
+        List<Game> expected = new ArrayList<>();
+        for (Game game : new PgnIterator(path.toString())) {
+            expected.add(game);
+        }
+
+        try (PgnIndex index = PgnIndex.open(path)) {
+            assertEquals(expected.size(), index.size());
+            assertTrue(Files.exists(PgnIndex.getIndexPath(path)));
+            for (int i : new int[]{0, 1, 450, expected.size() - 1}) {
+                assertEquals(describe(expected.get(i)), describe(index.getGame(i)));
+                PgnIndexEntry entry = index.getEntry(i);
+                assertEquals(expected.get(i).getWhitePlayer().getName(), entry.getWhite());
+                assertEquals(expected.get(i).getBlackPlayer().getElo(), entry.getBlackElo());
+                assertEquals(expected.get(i).getResult().getDescription(), entry.getResult());
+                assertTrue(index.getGameText(i).startsWith("[Event "));
+            }
+            List<Game> games = index.getGames(100, 110);
+            assertEquals(10, games.size());
+            for (int i = 0; i < games.size(); i++) {
+                assertEquals(describe(expected.get(100 + i)), describe(games.get(i)));
+            }
+        }
+
+        // the saved index is reused as is
+        try (PgnIndex index = PgnIndex.open(path)) {
+            assertEquals(expected.size(), index.size());
+            assertEquals(0, index.update());
+            assertEquals(describe(expected.get(42)), describe(index.getGame(42)));
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        Path full = copy("31_games.pgn");
+        List<PgnIndexEntry> expected;
+        try (PgnIndex index = PgnIndex.open(full)) {
+            expected = index.getEntries();
+        }
+        byte[] bytes = Files.readAllBytes(full);
+        PgnIndexEntry tenth = expected.get(10);
+        // the file ends in the middle of the eleventh game, which is not indexed until complete
+        int split = (int) tenth.getOffset() + tenth.getLength() / 2;
+        Path path = folder.getRoot().toPath().resolve("appended.pgn");
+        Files.write(path, Arrays.copyOf(bytes, split));
+
+        try (PgnIndex index = PgnIndex.open(path)) {
+            assertEquals(10, index.size());
+            long indexedLength = index.getIndexedLength();
+            Files.write(path, Arrays.copyOfRange(bytes, split, bytes.length), StandardOpenOption.APPEND);
+            // counting the games scans only the appended portion, leaving the index as is
+            byte[] saved = Files.readAllBytes(index.getIndexPath());
+            assertEquals(expected.size(), new PgnHolder(path.toString()).countGamesInPgnFile());
+            assertArrayEquals(saved, Files.readAllBytes(index.getIndexPath()));
+            assertEquals(21, index.update());
+            assertTrue(index.getIndexedLength() > indexedLength);
+            assertEquals(expected.size(), index.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).toString(), index.getEntry(i).toString());
+            }
+        }
+        try (PgnIndex index = PgnIndex.open(path)) {
+            assertEquals(expected.size(), index.size());
+        }
+    }
+
+    @Test
+    public void testRebuildOnEditAndAppend() throws Exception {
+        Path path = copy("31_games.pgn");
+        try (PgnIndex index = PgnIndex.open(path)) {
+            assertEquals(31, index.size());
+        }
+        // an edit in the middle of the file keeping its length, followed by an append, is detected
+        byte[] bytes = Files.readAllBytes(path);
+        String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        int white = text.indexOf("[White \"", bytes.length / 2) + "[White \"".length();
+        bytes[white] = 'X';
+        Files.write(path, bytes);
+        int first = text.indexOf("[Event ", 1);
+        Files.write(path, Arrays.copyOf(bytes, first), StandardOpenOption.APPEND);
+
+        try (PgnIndex index = PgnIndex.open(path)) {
+            assertEquals(32, index.size());
+            List<PgnIndexEntry> entries = index.getEntries();
+            int edited = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).getOffset() < white && white < entries.get(i).getOffset() +
+                        entries.get(i).getLength()) {
+                    edited = i;
+                }
+            }
+            assertEquals('X', entries.get(edited).getWhite().charAt(0));
+            assertEquals(entries.get(edited).getWhite(), index.getGame(edited).getWhitePlayer().getName());
+        }
+    }
+
+    @Test
+    public void testRebuildOnChange() throws Exception {
+        Path path = copy("31_games.pgn");
+        try (PgnIndex index = PgnIndex.open(path)) {
+            assertEquals(31, index.size());
+        }
+        Files.copy(Paths.get("src/test/resources/cup.pgn"), path, StandardCopyOption.REPLACE_EXISTING);
+        // a stale index is neither used nor rewritten when counting the games
+        byte[] stale = Files.readAllBytes(PgnIndex.getIndexPath(path));
+        assertEquals(900, new PgnHolder(path.toString()).countGamesInPgnFile());
+        assertArrayEquals(stale, Files.readAllBytes(PgnIndex.getIndexPath(path)));
+        try (PgnIndex index = PgnIndex.open(path)) {
+            assertEquals(900, index.size());
+        }
+        assertEquals(900, new PgnHolder(path.toString()).countGamesInPgnFile());
+    }
+}
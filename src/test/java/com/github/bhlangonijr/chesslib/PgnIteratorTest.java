@@ -13,7 +13,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.github.bhlangonijr.chesslib.GameDescriptions.describe;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 /**
  * The type Pgn iterator test.
@@ -151,4 +153,59 @@ public class PgnIteratorTest {
                 commentedMoves.get("42..g4"));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHeaderOnlyIteration() throws Exception {
+        List<Game> loaded = new ArrayList<>();
+        for (Game game : new PgnIterator("src/test/resources/cct131.pgn")) {
+            loaded.add(game);
+        }
+        int count = 0;
+        try (PgnIterator games = new PgnIterator("src/test/resources/cct131.pgn", false)) {
+            for (Game game : games) {
+                Game expected = loaded.get(count++);
+                assertEquals(expected.getWhitePlayer().getName(), game.getWhitePlayer().getName());
+                assertEquals(expected.getBlackPlayer().getElo(), game.getBlackPlayer().getElo());
+                assertEquals(expected.getResult(), game.getResult());
+                assertEquals(expected.getEco(), game.getEco());
+                assertEquals(0, game.getHalfMoves().size());
+                assertFalse(StringUtils.isBlank(game.getMoveText()));
+                assertFalse(game.getMoveText().toString().trim().endsWith(expected.getResult().getDescription()));
+
+                game.loadMoveText();
+                assertEquals(expected.getHalfMoves().toString(), game.getHalfMoves().toString());
+            }
+        }
+        assertEquals(loaded.size(), count);
+    }
+
+    @Test
+    public void testFilteredIteration() throws Exception {
+        String filename = "src/test/resources/cup.pgn";
+        List<String> expected = new ArrayList<>();
+        for (Game game : new PgnIterator(filename)) {
+            if (game.getWhitePlayer().getElo() > 2400 && game.getBlackPlayer().getElo() > 2400) {
+                expected.add(describe(game));
+            }
+        }
+        assertFalse(expected.isEmpty());
+
+        List<String> filtered = new ArrayList<>();
+        try (PgnIterator games = new PgnIterator(filename, tags ->
+                Integer.parseInt(tags.getOrDefault("whiteelo", "0")) > 2400 &&
+                        Integer.parseInt(tags.getOrDefault("BlackElo", "0")) > 2400, true)) {
+            for (Game game : games) {
+                filtered.add(describe(game));
+            }
+        }
+        assertEquals(expected, filtered);
+
+        int count = 0;
+        try (PgnIterator games = new PgnIterator(filename, tags -> "none".equals(tags.get("ECO")), false)) {
+            for (Game ignored : games) {
+                count++;
+            }
+        }
+        assertEquals(0, count);
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.bhlangonijr.chesslib;
+
+import com.github.bhlangonijr.chesslib.game.Game;
+import com.github.bhlangonijr.chesslib.pgn.PgnIterator;
+import com.github.bhlangonijr.chesslib.pgn.PgnTokenizer;
+import com.github.bhlangonijr.chesslib.pgn.PgnTokenizer.TokenType;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type PGN tokenizer test.
+ */
+public class PgnTokenizerTest {
+
+    private static final String PGN = "﻿[Event \"Casual \\\"Blitz\\\"\"]\n" +
+            "[WhiteElo \"2750\"]\n" +
+            "[Black \"Müller\"]\n" +
+            "\n" +
+            "1. e4 {best by test} e5 2.Nf3 $1 (2. f4 exf4 ; gambit\n" +
+            ") 2... Nc6 3. O-O-O 0-0 1/2-1/2\n" +
+            "\n" +
+            "[Event \"Next\"]\n" +
+            "\n" +
+            "1. d4 *";
+
+    @Test
+    public void testTokens() throws Exception {
+        PgnTokenizer tokenizer = PgnTokenizer.fromString(PGN);
+
+        assertEquals(TokenType.TAG, tokenizer.next());
+        assertEquals(3, tokenizer.getOffset());
+        assertTrue(tokenizer.isTag("event"));
+        assertEquals("Event", tokenizer.getTagName());
+        assertEquals("Casual \"Blitz\"", tokenizer.getTagValue());
+        assertFalse(tokenizer.tagValueEquals("Casual \\\"Blitz\\\""));
+
+        assertEquals(TokenType.TAG, tokenizer.next());
+        assertTrue(tokenizer.isTag("WhiteElo"));
+        assertTrue(tokenizer.tagValueEquals("2750"));
+        assertEquals(2750, tokenizer.getTagValueAsInt(0));
+
+        assertEquals(TokenType.TAG, tokenizer.next());
+        assertEquals("Müller", tokenizer.getTagValue());
+        assertEquals(0, tokenizer.getTagValueAsInt(0));
+
+        assertEquals(TokenType.MOVE_NUMBER, tokenizer.next());
+        assertEquals(1, tokenizer.getMoveNumber());
+        assertEquals(2, tokenizer.getLength());
+        assertToken(tokenizer, TokenType.SAN, "e4");
+        assertToken(tokenizer, TokenType.COMMENT, "best by test");
+        assertToken(tokenizer, TokenType.SAN, "e5");
+        assertEquals(TokenType.MOVE_NUMBER, tokenizer.next());
+        assertEquals(2, tokenizer.getMoveNumber());
+        assertToken(tokenizer, TokenType.SAN, "Nf3");
+        assertEquals(TokenType.NAG, tokenizer.next());
+        assertEquals(1, tokenizer.getNag());
+        assertEquals(TokenType.VARIATION_START, tokenizer.next());
+        assertEquals(TokenType.MOVE_NUMBER, tokenizer.next());
+        assertToken(tokenizer, TokenType.SAN, "f4");
+        assertToken(tokenizer, TokenType.SAN, "exf4");
+        assertToken(tokenizer, TokenType.COMMENT, " gambit");
+        assertEquals(TokenType.VARIATION_END, tokenizer.next());
+        assertEquals(TokenType.MOVE_NUMBER, tokenizer.next());
+        assertEquals(2, tokenizer.getMoveNumber());
+        assertEquals(4, tokenizer.getLength());
+        assertToken(tokenizer, TokenType.SAN, "Nc6");
+        assertEquals(TokenType.MOVE_NUMBER, tokenizer.next());
+        assertToken(tokenizer, TokenType.SAN, "O-O-O");
+        assertToken(tokenizer, TokenType.SAN, "0-0");
+        assertToken(tokenizer, TokenType.RESULT, "1/2-1/2");
+
+        assertEquals(TokenType.TAG, tokenizer.next());
+        assertEquals(PGN.indexOf("[Event \"Next"), tokenizer.getOffset() - 3);
+        assertEquals("[Event \"Next\"]", tokenizer.getText());
+        assertEquals(TokenType.MOVE_NUMBER, tokenizer.next());
+        assertToken(tokenizer, TokenType.SAN, "d4");
+        assertToken(tokenizer, TokenType.RESULT, "*");
+        assertEquals(TokenType.END_OF_FILE, tokenizer.next());
+        assertEquals(TokenType.END_OF_FILE, tokenizer.next());
+    }
+
+    @Test
+    public void testFileTokens() throws Exception {
+        String filename = "src/test/resources/cup.pgn";
+        int expectedGames = 0;
+        for (Game ignored : new PgnIterator(filename)) {
+            expectedGames++;
+        }
+        List<Long> offsets = new ArrayList<>();
+        int games = 0;
+        try (PgnTokenizer tokenizer = new PgnTokenizer(filename)) {
+            for (TokenType type = tokenizer.next(); type != TokenType.END_OF_FILE; type = tokenizer.next()) {
+                if (type == TokenType.RESULT) {
+                    games++;
+                } else if (tokenizer.isTag("Event")) {
+                    offsets.add(tokenizer.getOffset());
+                }
+            }
+        }
+        assertEquals(expectedGames, games);
+        assertEquals(expectedGames, offsets.size());
+
+        // a small window forces the file to be remapped many times, with tokens spanning two windows
+        List<Long> remappedOffsets = new ArrayList<>();
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try (PgnTokenizer tokenizer = new PgnTokenizer(channel, 0, 7)) {
+            for (TokenType type = tokenizer.next(); type != TokenType.END_OF_FILE; type = tokenizer.next()) {
+                if (tokenizer.isTag("Event")) {
+                    remappedOffsets.add(tokenizer.getOffset());
+                }
+            }
+        }
+        assertEquals(offsets, remappedOffsets);
+
+        try (RandomAccessFile file = new RandomAccessFile(new File(filename), "r")) {
+            for (long offset : offsets) {
+                file.seek(offset);
+                assertEquals("[Event ", file.readLine().substring(0, 7));
+            }
+        }
+    }
+
+    private static void assertToken(PgnTokenizer tokenizer, TokenType type, String text) throws Exception {
+        assertEquals(type, tokenizer.next());
+        assertEquals(text, tokenizer.getText());
+        assertTrue(tokenizer.textEquals(text) || type == TokenType.COMMENT);
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.bhlangonijr.chesslib;
+
+import com.github.bhlangonijr.chesslib.util.XorShiftRandom;
+
+/**
+ * A standalone benchmark comparing the magic bitboard lookups of the slider attacks with the reference ray scan. It is
+ * not part of the unit tests, and it can be run from the test classpath, e.g.:
+ * <pre>{@code
+ * java -cp target/classes:target/test-classes com.github.bhlangonijr.chesslib.SliderAttacksBenchmark
+ * }</pre>
+ */
+public class SliderAttacksBenchmark {
+
+    private static final int OCCUPANCIES = 4096;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    /**
+     * Runs the benchmark and prints the average time per lookup of both implementations.
+     *
+     * @param args the command line arguments, not used
+     */
+    public static void main(String[] args) {
+
+        long[] occupancies = randomOccupancies();
+        long checksum = 0L;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            checksum ^= queenAttacksByRayScan(occupancies) ^ queenAttacksByMagic(occupancies);
+        }
+
+        long time = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum ^= queenAttacksByRayScan(occupancies);
+        }
+        long rayScanTime = System.nanoTime() - time;
+
+        time = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum ^= queenAttacksByMagic(occupancies);
+        }
+        long magicTime = System.nanoTime() - time;
+
+        long lookups = (long) ROUNDS * OCCUPANCIES * 64;
+        System.out.println("Queen attacks, ray scan: " + rayScanTime / (double) lookups + " ns/lookup");
+        System.out.println("Queen attacks, magic:    " + magicTime / (double) lookups + " ns/lookup");
+        System.out.println("Checksum: " + checksum);
+    }
+
+    private static long[] randomOccupancies() {
+        XorShiftRandom random = new XorShiftRandom(49109794719L);
+        long[] occupancies = new long[OCCUPANCIES];
+        for (int i = 0; i < OCCUPANCIES; i++) {
+            occupancies[i] = random.nextLong() & random.nextLong();
+        }
+        return occupancies;
+    }
+
+    private static long queenAttacksByRayScan(long[] occupancies) {
+        long result = 0L;
+        for (Square square : Square.values()) {
+            if (square == Square.NONE) {
+                continue;
+            }
+            for (long occ : occupancies) {
+                result ^= Bitboard.getRookAttacksByRayScan(occ, square) |
+                        Bitboard.getBishopAttacksByRayScan(occ, square);
+            }
+        }
+        return result;
+    }
+
+    private static long queenAttacksByMagic(long[] occupancies) {
+        long result = 0L;
+        for (Square square : Square.values()) {
+            if (square == Square.NONE) {
+                continue;
+            }
+            for (long occ : occupancies) {
+                result ^= Bitboard.getQueenAttacks(occ, square);
+            }
+        }
+        return result;
+    }
+}
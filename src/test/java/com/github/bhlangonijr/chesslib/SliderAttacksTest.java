@@ -0,0 +1,40 @@
+package com.github.bhlangonijr.chesslib;
+
+import com.github.bhlangonijr.chesslib.util.XorShiftRandom;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The type Slider attacks test.
+ */
+public class SliderAttacksTest {
+
+    private static final int OCCUPANCIES = 4096;
+
+    @Test
+    public void testMagicAttacksMatchRayScan() {
+
+        long[] occupancies = randomOccupancies();
+        for (Square square : Square.values()) {
+            if (square == Square.NONE) {
+                continue;
+            }
+            for (long occ : occupancies) {
+                assertEquals(square.toString(), Bitboard.getRookAttacksByRayScan(occ, square),
+                        Bitboard.getRookAttacks(occ, square));
+                assertEquals(square.toString(), Bitboard.getBishopAttacksByRayScan(occ, square),
+                        Bitboard.getBishopAttacks(occ, square));
+            }
+        }
+    }
+
+    private static long[] randomOccupancies() {
+        XorShiftRandom random = new XorShiftRandom(49109794719L);
+        long[] occupancies = new long[OCCUPANCIES];
+        for (int i = 0; i < OCCUPANCIES; i++) {
+            occupancies[i] = random.nextLong() & random.nextLong();
+        }
+        return occupancies;
+    }
+}
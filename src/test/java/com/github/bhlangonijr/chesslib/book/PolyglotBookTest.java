@@ -0,0 +1,99 @@
+package com.github.bhlangonijr.chesslib.book;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Polyglot book test.
+ */
+public class PolyglotBookTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBookLookup() throws Exception {
+        Board start = new Board();
+        Board italian = new Board();
+        for (String move : "e2e4 e7e5 g1f3 b8c6 f1c4 g8f6".split(" ")) {
+            italian.doMove(move);
+        }
+
+        List<long[]> entries = new ArrayList<>();
+        entries.add(new long[]{start.getPolyglotKey(), encode(Square.E2, Square.E4, 0), 10});
+        entries.add(new long[]{start.getPolyglotKey(), encode(Square.D2, Square.D4, 0), 5});
+        // not a legal move, it must be discarded
+        entries.add(new long[]{start.getPolyglotKey(), encode(Square.E2, Square.E5, 0), 1});
+        // castling is stored as the king capturing its own rook
+        entries.add(new long[]{italian.getPolyglotKey(), encode(Square.E1, Square.H1, 0), 3});
+        Random random = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            entries.add(new long[]{random.nextLong(), encode(Square.A2, Square.A3, 0), 1});
+        }
+        entries.sort((a, b) -> Long.compareUnsigned(a[0], b[0]));
+        File file = folder.newFile("book.bin");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeShort((int) entry[1]);
+                out.writeShort((int) entry[2]);
+                out.writeInt(0);
+            }
+        }
+
+        PolyglotBook closedBook;
+        try (PolyglotBook book = new PolyglotBook(file.getPath())) {
+            closedBook = book;
+            assertEquals(entries.size(), book.size());
+
+            List<BookEntry> startEntries = book.getEntries(start);
+            assertEquals(2, startEntries.size());
+            assertEquals(new Move("e2e4", Side.WHITE), startEntries.get(0).getMove());
+            assertEquals(10, startEntries.get(0).getWeight());
+            assertEquals(new Move("d2d4", Side.WHITE), startEntries.get(1).getMove());
+            assertEquals(new Move("e2e4", Side.WHITE), book.getBestMove(start));
+
+            Set<Move> picked = new HashSet<>();
+            for (int i = 0; i < 100; i++) {
+                picked.add(book.getRandomMove(start, random));
+            }
+            assertEquals(2, picked.size());
+
+            assertEquals(new Move("e1g1", Side.WHITE), book.getBestMove(italian));
+
+            Board outOfBook = new Board();
+            outOfBook.doMove("h2h4");
+            assertTrue(book.getEntries(outOfBook).isEmpty());
+            assertNull(book.getRandomMove(outOfBook, random));
+        }
+        try {
+            closedBook.getBestMove(start);
+            fail("A closed book must not be probed");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static long encode(Square from, Square to, int promotion) {
+        return to.getFile().ordinal() | to.getRank().ordinal() << 3 | from.getFile().ordinal() << 6 |
+                from.getRank().ordinal() << 9 | promotion << 12;
+    }
+}
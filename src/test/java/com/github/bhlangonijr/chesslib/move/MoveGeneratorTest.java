@@ -4,7 +4,10 @@ import com.github.bhlangonijr.chesslib.*;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import static junit.framework.Assert.assertFalse;
 import static org.junit.Assert.assertEquals;
@@ -99,4 +102,148 @@ public class MoveGeneratorTest {
         assertFalse("Illegal move generated", moves.contains(new Move(Square.E4, Square.F3)));
 
     }
+
+    @Test
+    public void testPackedMoveGeneration() {
+        String[] fens = {
+                Constants.startStandardFENPosition,
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 0",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 0",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "8/1pp3p1/4pq1p/PP1bp3/1Q2pPk1/4P1P1/2B5/6K1 b - f3 0 34"
+        };
+        Board board = new Board();
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+        for (String fen : fens) {
+            board.loadFromFen(fen);
+            List<Move> expected = MoveGenerator.generateLegalMoves(board);
+            int count = MoveGenerator.generateLegalMoves(board, buffer);
+            assertEquals(fen, expected.size(), count);
+            for (int i = 0; i < count; i++) {
+                assertTrue(fen, expected.contains(PackedMove.toMove(buffer[i])));
+            }
+        }
+    }
+
+    @Test
+    public void testPackedMoveEncoding() {
+        int move = PackedMove.encode(Square.B7, Square.A8, Piece.WHITE_KNIGHT);
+        assertEquals(Square.B7, PackedMove.getFrom(move));
+        assertEquals(Square.A8, PackedMove.getTo(move));
+        assertEquals(Piece.WHITE_KNIGHT, PackedMove.getPromotion(move));
+        assertTrue(PackedMove.isPromotion(move));
+        assertFalse(PackedMove.isCapture(move));
+        assertEquals(new Move("b7a8n", Side.WHITE), PackedMove.toMove(move));
+
+        move = PackedMove.encode(Square.E5.ordinal(), Square.D6.ordinal(), Piece.NONE,
+                PackedMove.CAPTURE | PackedMove.EN_PASSANT);
+        assertEquals(Piece.NONE, PackedMove.getPromotion(move));
+        assertTrue(PackedMove.isCapture(move));
+        assertTrue(PackedMove.isEnPassant(move));
+        assertEquals(PackedMove.encode(new Move("e5d6", Side.WHITE)), PackedMove.withoutFlags(move));
+    }
+
+    /**
+     * Test the generation of legal captures, checks and evasions against the filtered legal moves.
+     */
+    @Test
+    public void testCapturesChecksAndEvasions() {
+        String[] fens = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                // discovered checks by a knight, a pawn and the king, and a castling giving check
+                "4k3/8/8/4N3/8/8/4R3/R3K3 w Q - 0 1",
+                "8/8/8/8/R2P3k/8/8/4K3 w - - 0 1",
+                "7k/8/8/8/3K4/8/8/B7 w - - 0 1",
+                "5k2/8/8/8/8/8/8/4K2R w K - 0 1",
+                // en passant capture uncovering a check, promotions giving check, double check
+                "8/8/8/1k1pP2R/8/8/8/4K3 w - d6 0 1",
+                "3k4/1P6/8/8/8/8/8/4K3 w - - 0 1",
+                "4k3/8/8/8/1b6/8/3P4/r3K3 w - - 0 1"
+        };
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Random random = new Random(42);
+        for (String fen : fens) {
+            Board board = new Board();
+            board.loadFromFen(fen);
+            for (int ply = 0; ply < 40; ply++) {
+                int count = MoveGenerator.generateLegalMoves(board, moves);
+                if (count == 0) {
+                    break;
+                }
+                int[] legal = Arrays.copyOf(moves, count);
+                Set<Integer> captures = new HashSet<>();
+                Set<Integer> checks = new HashSet<>();
+                for (int move : legal) {
+                    if (PackedMove.isCapture(move)) {
+                        captures.add(move);
+                    }
+                    board.makeMove(move);
+                    if (board.isKingAttacked()) {
+                        checks.add(move);
+                    }
+                    board.unmakeMove();
+                }
+                Set<Integer> evasions = new HashSet<>();
+                if (board.isKingAttacked()) {
+                    for (int move : legal) {
+                        evasions.add(move);
+                    }
+                }
+                String position = board.getFen();
+                assertEquals(position, captures, toSet(moves, MoveGenerator.generateLegalCaptures(board, moves)));
+                assertEquals(position, checks, toSet(moves, MoveGenerator.generateChecks(board, moves)));
+                assertEquals(position, evasions, toSet(moves, MoveGenerator.generateEvasions(board, moves)));
+                board.makeMove(legal[random.nextInt(count)]);
+            }
+        }
+
+        Board board = new Board();
+        board.loadFromFen("4k3/8/8/4N3/8/8/4R3/R3K3 w Q - 0 1");
+        List<Move> checks = MoveGenerator.generateChecks(board);
+        assertTrue(checks.contains(new Move("e5c6", Side.WHITE)));
+        assertTrue(checks.contains(new Move("a1a8", Side.WHITE)));
+        assertTrue(checks.contains(new Move("e5d3", Side.WHITE)));
+        assertFalse(checks.contains(new Move("e5e4", Side.WHITE)));
+    }
+
+    /**
+     * Test the counting of the legal moves against their generation.
+     */
+    @Test
+    public void testCountLegalMoves() {
+        String[] fens = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "8/8/8/1k1pP2R/8/8/8/4K3 w - d6 0 1"
+        };
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Random random = new Random(11);
+        for (String fen : fens) {
+            Board board = new Board();
+            board.loadFromFen(fen);
+            for (int ply = 0; ply < 80; ply++) {
+                int count = MoveGenerator.generateLegalMoves(board, moves);
+                assertEquals(board.getFen(), count, MoveGenerator.countLegalMoves(board));
+                if (count == 0) {
+                    break;
+                }
+                board.makeMove(moves[random.nextInt(count)]);
+            }
+        }
+    }
+
+    private static Set<Integer> toSet(int[] moves, int count) {
+        Set<Integer> set = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            assertTrue(PackedMove.toString(moves[i]), set.add(moves[i]));
+        }
+        return set;
+    }
 }
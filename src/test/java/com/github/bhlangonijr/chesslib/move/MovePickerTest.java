@@ -0,0 +1,115 @@
+package com.github.bhlangonijr.chesslib.move;
+
+import com.github.bhlangonijr.chesslib.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Move picker test.
+ */
+public class MovePickerTest {
+
+    private static final String[] FENS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -"
+    };
+
+    @Test
+    public void testPickerReturnsAllLegalMoves() {
+        MovePicker picker = new MovePicker();
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        for (String fen : FENS) {
+            Board board = new Board();
+            board.loadFromFen(fen);
+            int count = MoveGenerator.generateLegalMoves(board, legal);
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                expected.add(PackedMove.withoutFlags(legal[i]));
+            }
+
+            // use a legal quiet move as hash move, and both a legal and an illegal killer
+            int hashMove = PackedMove.NONE;
+            int killer = PackedMove.NONE;
+            for (int i = 0; i < count; i++) {
+                if (!PackedMove.isCapture(legal[i]) && !PackedMove.isPromotion(legal[i])) {
+                    if (hashMove == PackedMove.NONE) {
+                        hashMove = legal[i];
+                    } else {
+                        killer = legal[i];
+                    }
+                }
+            }
+            int illegal = PackedMove.encode(Square.A1, Square.H8, Piece.NONE);
+            picker.init(board, PackedMove.withoutFlags(hashMove), illegal, killer);
+
+            List<Integer> picked = new ArrayList<>();
+            for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+                picked.add(move);
+            }
+            assertEquals(fen, count, picked.size());
+            Set<Integer> pickedSet = new HashSet<>();
+            for (int move : picked) {
+                assertTrue(fen + " " + PackedMove.toString(move), pickedSet.add(PackedMove.withoutFlags(move)));
+            }
+            assertEquals(fen, expected, pickedSet);
+            if (hashMove != PackedMove.NONE) {
+                assertEquals(hashMove, (int) picked.get(0));
+            }
+            assertEquals(PackedMove.NONE, picker.next());
+        }
+    }
+
+    @Test
+    public void testCapturesOrdering() {
+        Board board = new Board();
+        board.loadFromFen("4k3/8/3r4/2P1q3/p7/1b3N2/P1Q5/7K w - - 0 1");
+        MovePicker picker = new MovePicker();
+        picker.initCaptures(board);
+        List<String> captures = new ArrayList<>();
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            assertTrue(PackedMove.isCapture(move));
+            captures.add(PackedMove.toString(move));
+        }
+        // most valuable victims first, and the capture of the bishop by the queen on a defended square last
+        assertEquals(Arrays.asList("f3e5", "c5d6", "a2b3", "c2b3"), captures);
+
+        // the losing capture is skipped on request
+        picker.initCaptures(board, true);
+        captures.clear();
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            captures.add(PackedMove.toString(move));
+        }
+        assertEquals(Arrays.asList("f3e5", "c5d6", "a2b3"), captures);
+    }
+
+    @Test
+    public void testStagesOrder() {
+        Board board = new Board();
+        board.loadFromFen("r3k3/1P6/8/3p4/4P3/8/8/4K2R w K - 0 1");
+        int killer = PackedMove.encode(Square.E1, Square.F2, Piece.NONE);
+        MovePicker picker = new MovePicker();
+        picker.init(board, PackedMove.NONE, killer, killer);
+        List<String> moves = new ArrayList<>();
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            moves.add(PackedMove.toString(move));
+        }
+        // capture promotions to queen first, then the capture of the pawn, then quiet promotions and the killer
+        assertEquals("b7a8q", moves.get(0));
+        assertTrue(moves.indexOf("e4d5") < moves.indexOf("b7b8q"));
+        assertTrue(moves.indexOf("b7b8q") < moves.indexOf("e1f2"));
+        assertTrue(moves.indexOf("e1f2") < moves.indexOf("e1g1"));
+        assertEquals(moves.indexOf("e1f2"), moves.lastIndexOf("e1f2"));
+    }
+}
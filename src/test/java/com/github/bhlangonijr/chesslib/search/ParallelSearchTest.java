@@ -0,0 +1,67 @@
+package com.github.bhlangonijr.chesslib.search;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.game.TimeControl;
+import com.github.bhlangonijr.chesslib.game.TimeControlType;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Parallel search test.
+ */
+public class ParallelSearchTest {
+
+    @Test
+    public void testParallelSearch() {
+        Board board = new Board();
+        board.loadFromFen("r1b2k1r/ppp1bppp/8/1B1Q4/5q2/2P5/PPP2PPP/R3R1K1 w - - 1 0");
+        String fen = board.getFen();
+        TimeControl timeControl = new TimeControl();
+        timeControl.setTimeControlType(TimeControlType.FIXED_DEPTH);
+        timeControl.setDepth(5);
+        try (ParallelSearch search = new ParallelSearch(4)) {
+            ParallelSearchResult result = search.search(board, timeControl);
+            assertEquals(fen, board.getFen());
+            assertTrue(result.toString(), result.isMate());
+            assertEquals(2, result.getMateDistance());
+            assertEquals(4, result.getThreadCount());
+            long[] threadNodes = result.getThreadNodes();
+            long total = 0;
+            for (long nodes : threadNodes) {
+                assertTrue(nodes > 0);
+                total += nodes;
+            }
+            assertEquals(total, result.getNodes());
+            assertTrue(result.getNodesPerSecondScaling() >= 1.0);
+            assertTrue(result.toString().endsWith(" threads 4"));
+        }
+    }
+
+    @Test
+    public void testStop() {
+        Board board = new Board();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (ParallelSearch search = new ParallelSearch(2)) {
+            scheduler.schedule(search::stop, 200, TimeUnit.MILLISECONDS);
+            long start = System.currentTimeMillis();
+            ParallelSearchResult result = search.search(board, new TimeControl());
+            assertTrue(System.currentTimeMillis() - start < 5000);
+            assertNotEquals(PackedMove.NONE, result.getBestMove());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreadCount() {
+        new ParallelSearch(0);
+    }
+}
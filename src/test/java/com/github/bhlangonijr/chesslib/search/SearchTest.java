@@ -0,0 +1,123 @@
+package com.github.bhlangonijr.chesslib.search;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.game.TimeControl;
+import com.github.bhlangonijr.chesslib.game.TimeControlType;
+import com.github.bhlangonijr.chesslib.move.MoveGenerator;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Search test.
+ */
+public class SearchTest {
+
+    private static TimeControl depth(int depth) {
+        TimeControl timeControl = new TimeControl();
+        timeControl.setTimeControlType(TimeControlType.FIXED_DEPTH);
+        timeControl.setDepth(depth);
+        return timeControl;
+    }
+
+    @Test
+    public void testMateInOne() {
+        Board board = new Board();
+        board.loadFromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search().search(board, depth(4));
+        assertEquals("a1a8", PackedMove.toString(result.getBestMove()));
+        assertTrue(result.isMate());
+        assertEquals(1, result.getMateDistance());
+        assertEquals(Search.MATE - 1, result.getScore());
+    }
+
+    @Test
+    public void testMateInTwo() {
+        Board board = new Board();
+        // 1. Qd8+ Bxd8 2. Re8#
+        board.loadFromFen("r1b2k1r/ppp1bppp/8/1B1Q4/5q2/2P5/PPP2PPP/R3R1K1 w - - 1 0");
+        SearchResult result = new Search().search(board, depth(5));
+        assertTrue(result.toString(), result.isMate());
+        assertEquals(2, result.getMateDistance());
+        assertEquals(3, result.getPrincipalVariation().length);
+    }
+
+    @Test
+    public void testWinsMaterial() {
+        Board board = new Board();
+        board.loadFromFen("rnb1kbnr/pppp1ppp/8/4p3/4P2q/5N2/PPPP1PPP/RNBQKB1R w KQkq - 0 1");
+        SearchResult result = new Search().search(board, depth(4));
+        assertEquals("f3h4", PackedMove.toString(result.getBestMove()));
+        assertTrue(result.getScore() > 500);
+    }
+
+    @Test
+    public void testPrincipalVariationAndBoardRestored() {
+        Board board = new Board();
+        board.loadFromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String fen = board.getFen();
+        long key = board.getIncrementalHashKey();
+        List<SearchResult> iterations = new ArrayList<>();
+        Search search = new Search();
+        search.setListener(iterations::add);
+        SearchResult result = search.search(board, depth(5));
+
+        assertEquals(fen, board.getFen());
+        assertEquals(key, board.getIncrementalHashKey());
+        assertEquals(5, result.getDepth());
+        assertEquals(5, iterations.size());
+        assertEquals(result, iterations.get(4));
+        assertTrue(result.getNodes() > 0);
+        assertTrue(result.getNodesPerSecond() > 0);
+        assertTrue(result.toString().startsWith("depth 5 score cp "));
+        // the principal variation is a sequence of legal moves
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int move : result.getPrincipalVariation()) {
+            int count = MoveGenerator.generateLegalMoves(board, moves);
+            assertTrue(Arrays.stream(moves, 0, count).anyMatch(legal -> legal == move));
+            board.makeMove(move);
+        }
+        assertTrue(result.getPrincipalVariation().length >= 1);
+    }
+
+    @Test
+    public void testNoLegalMoves() {
+        Board board = new Board();
+        board.loadFromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        SearchResult result = new Search().search(board, depth(3));
+        assertEquals(PackedMove.NONE, result.getBestMove());
+        assertEquals(0, result.getScore());
+        board.loadFromFen("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1");
+        result = new Search().search(board, depth(3));
+        assertEquals(PackedMove.NONE, result.getBestMove());
+        assertEquals(-Search.MATE, result.getScore());
+    }
+
+    @Test
+    public void testLimits() {
+        Board board = new Board();
+        TimeControl nodes = new TimeControl();
+        nodes.setTimeControlType(TimeControlType.NODES);
+        nodes.setNodes(20_000);
+        SearchResult result = new Search().search(board, nodes);
+        assertNotEquals(PackedMove.NONE, result.getBestMove());
+        assertTrue(result.getNodes() <= 20_000);
+
+        TimeControl time = new TimeControl();
+        time.setTimeControlType(TimeControlType.TIME_PER_MOVE);
+        time.setMilliseconds(200);
+        long start = System.currentTimeMillis();
+        result = new Search().search(board, time);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertNotEquals(PackedMove.NONE, result.getBestMove());
+        assertFalse(result.isMate());
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.bhlangonijr.chesslib.search;
+
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.PackedMove;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Transposition table test.
+ */
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(1 << 16, table.getCapacity());
+        int move = PackedMove.encode(Square.E7, Square.E8, Piece.WHITE_QUEEN) | PackedMove.CAPTURE;
+        long key = 0x123456789ABCDEFL;
+
+        assertEquals(TranspositionTable.MISS, table.probe(key));
+        table.store(key, move, -1234, 7, TranspositionTable.BOUND_LOWER);
+        long data = table.probe(key);
+        assertEquals(move, TranspositionTable.getMove(data));
+        assertEquals(-1234, TranspositionTable.getScore(data));
+        assertEquals(7, TranspositionTable.getDepth(data));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.getBound(data));
+
+        // a store without a move preserves the move of the position
+        table.store(key, PackedMove.NONE, 32000, -1, TranspositionTable.BOUND_EXACT);
+        data = table.probe(key);
+        assertEquals(move, TranspositionTable.getMove(data));
+        assertEquals(32000, TranspositionTable.getScore(data));
+        assertEquals(-1, TranspositionTable.getDepth(data));
+        assertEquals(TranspositionTable.BOUND_EXACT, TranspositionTable.getBound(data));
+
+        assertEquals(TranspositionTable.MISS, table.probe(key + 1));
+        assertEquals(2, table.getHits());
+        assertEquals(2, table.getMisses());
+        assertEquals(0, table.getCollisions());
+
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(key));
+        assertEquals(0, table.getHits());
+        assertEquals(1, table.getMisses());
+    }
+
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        // keys falling in the same bucket
+        long bucketStride = (long) table.getCapacity() / 4 << 32 | table.getCapacity() / 4;
+        long[] keys = new long[5];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 42 + i * bucketStride;
+        }
+        for (int i = 0; i < 4; i++) {
+            table.store(keys[i], PackedMove.NONE, 0, 10 - i, TranspositionTable.BOUND_EXACT);
+        }
+        assertEquals(0, table.getCollisions());
+        // the shallowest entry is replaced
+        table.store(keys[4], PackedMove.NONE, 0, 8, TranspositionTable.BOUND_EXACT);
+        assertEquals(1, table.getCollisions());
+        assertEquals(TranspositionTable.MISS, table.probe(keys[3]));
+        assertEquals(8, TranspositionTable.getDepth(table.probe(keys[4])));
+        assertEquals(10, TranspositionTable.getDepth(table.probe(keys[0])));
+
+        // entries of previous searches are replaced first, even if deeper
+        table.newSearch();
+        table.store(keys[1], PackedMove.NONE, 0, 9, TranspositionTable.BOUND_EXACT);
+        table.store(keys[2], PackedMove.NONE, 0, 8, TranspositionTable.BOUND_EXACT);
+        table.store(keys[4], PackedMove.NONE, 0, 8, TranspositionTable.BOUND_EXACT);
+        table.store(keys[3], PackedMove.NONE, 0, 1, TranspositionTable.BOUND_EXACT);
+        assertEquals(TranspositionTable.MISS, table.probe(keys[0]));
+        assertTrue(table.probe(keys[3]) != TranspositionTable.MISS);
+    }
+
+    @Test
+    public void testHashFull() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(0, table.getHashFull());
+        Random random = new Random(7);
+        for (int i = 0; i < table.getCapacity() * 4; i++) {
+            table.store(random.nextLong(), PackedMove.NONE, 0, 1, TranspositionTable.BOUND_EXACT);
+        }
+        assertTrue(table.getHashFull() > 950);
+        table.newSearch();
+        assertEquals(0, table.getHashFull());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        int keys = 1 << 12;
+        AtomicBoolean corrupted = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    long key = 0x9E3779B97F4A7C15L * (random.nextInt(keys) + 1);
+                    long data = table.probe(key);
+                    // every stored entry has its score derived from its key and depth
+                    if (data != TranspositionTable.MISS && TranspositionTable.getScore(data) !=
+                            (short) (key + TranspositionTable.getDepth(data))) {
+                        corrupted.set(true);
+                    }
+                    int depth = random.nextInt(64);
+                    table.store(key, PackedMove.NONE, (short) (key + depth), depth, TranspositionTable.BOUND_EXACT);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(corrupted.get());
+        assertEquals(800_000, table.getHits() + table.getMisses());
+    }
+}